@@ -0,0 +1,65 @@
+package io.github.maxwellnie.free.jdbc.benchmark;
+
+/**
+ * Row type of the bench_user table.
+ *
+ * @author Maxwell Nie
+ */
+public class BenchUser {
+    private long id;
+    private String name;
+    private String email;
+    private int age;
+    private double balance;
+
+    public BenchUser() {
+    }
+
+    public BenchUser(long id, String name, String email, int age, double balance) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+        this.balance = balance;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public void setBalance(double balance) {
+        this.balance = balance;
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.maxwellnie.free.jdbc.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of the benchmark jar. Delegates to the JMH command line and writes the results as JSON
+ * to jmh-result.json unless a result format is given with -rf.
+ * <pre><code>
+ *   java -jar target/benchmarks.jar                       # all benchmarks, JSON results in jmh-result.json
+ *   java -jar target/benchmarks.jar Binding -rff binding.json
+ * </code></pre>
+ *
+ * @author Maxwell Nie
+ */
+public class BenchmarkRunner {
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.add("-rf");
+            arguments.add("json");
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.add("-rff");
+            arguments.add(DEFAULT_RESULT_FILE);
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+}
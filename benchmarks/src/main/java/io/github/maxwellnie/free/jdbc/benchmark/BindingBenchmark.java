@@ -0,0 +1,76 @@
+package io.github.maxwellnie.free.jdbc.benchmark;
+
+import io.github.maxwellnie.free.jdbc.statement.ParameterBinders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameter binding through setObject compared with the typed binders.
+ *
+ * @author Maxwell Nie
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BindingBenchmark {
+    private final List<Object> row = Arrays.asList(1L, "user", 30, 1.5, new BigDecimal("12.50"), new Timestamp(0L), true, new byte[]{1, 2, 3});
+    private Connection connection;
+    private PreparedStatement statement;
+    private ParameterBinders.ColumnBinders columnBinders;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = H2Database.open("binding");
+        statement = connection.prepareStatement("SELECT CAST(? AS BIGINT), CAST(? AS VARCHAR), CAST(? AS INT), CAST(? AS DOUBLE), " +
+                "CAST(? AS DECIMAL(10, 2)), CAST(? AS TIMESTAMP), CAST(? AS BOOLEAN), CAST(? AS VARBINARY)");
+        columnBinders = new ParameterBinders.ColumnBinders();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        statement.close();
+        H2Database.close(connection);
+    }
+
+    @Benchmark
+    public PreparedStatement setObject() throws SQLException {
+        for (int i = 0; i < row.size(); i++)
+            statement.setObject(i + 1, row.get(i));
+        return statement;
+    }
+
+    @Benchmark
+    public PreparedStatement typedBinders() throws SQLException {
+        for (int i = 0; i < row.size(); i++)
+            ParameterBinders.bind(statement, i + 1, row.get(i));
+        return statement;
+    }
+
+    @Benchmark
+    public PreparedStatement cachedColumnBinders() throws SQLException {
+        columnBinders.bindRow(statement, row);
+        return statement;
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.maxwellnie.free.jdbc.benchmark;
+
+import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.batch.BoundBatchSqlBuilder;
+import io.github.maxwellnie.free.jdbc.batch.ColumnarBatchSqlBuilder;
+import io.github.maxwellnie.free.jdbc.batch.ColumnarBatchSqlBuilder.ColumnType;
+import io.github.maxwellnie.free.jdbc.single.BoundSingleSqlBuilder;
+import io.github.maxwellnie.free.jdbc.single.SingleSql;
+import io.github.maxwellnie.free.jdbc.single.SingleSqlBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation and build cost of the SQL builders.
+ *
+ * @author Maxwell Nie
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BuilderBenchmark {
+
+    @Benchmark
+    public SingleSql singleSqlBuilder() {
+        return new SingleSqlBuilder().appendSql(H2Database.SELECT_ALL_SQL).build();
+    }
+
+    @Benchmark
+    public SingleSql boundSingleSqlBuilder() {
+        return new BoundSingleSqlBuilder(5)
+                .appendSql("INSERT INTO bench_user(id, name, email, age, balance) VALUES(")
+                .appendSqlParameter(1L).appendSql("?, ")
+                .appendSqlParameter("user").appendSql("?, ")
+                .appendSqlParameter("user@example.com").appendSql("?, ")
+                .appendSqlParameter(30).appendSql("?, ")
+                .appendSqlParameter(1.5).appendSql("?)")
+                .build();
+    }
+
+    @Benchmark
+    public BatchSql boundBatchSqlBuilder(Rows rows) {
+        BoundBatchSqlBuilder builder = new BoundBatchSqlBuilder(5).appendSingleSql(H2Database.INSERT_SQL);
+        for (int i = 0; i < rows.rows; i++)
+            builder.appendBatchSqlParameters(i, "user", "user@example.com", 30, 1.5);
+        return builder.build();
+    }
+
+    @Benchmark
+    public BatchSql columnarBatchSqlBuilder(Rows rows) {
+        ColumnarBatchSqlBuilder builder = new ColumnarBatchSqlBuilder(ColumnType.LONG, ColumnType.OBJECT, ColumnType.OBJECT, ColumnType.INT, ColumnType.DOUBLE)
+                .appendSingleSql(H2Database.INSERT_SQL);
+        for (int i = 0; i < rows.rows; i++)
+            builder.appendLong(i).appendObject("user").appendObject("user@example.com").appendInt(30).appendDouble(1.5);
+        return builder.build();
+    }
+
+    /**
+     * Row counts of the batch builders, kept out of the benchmark class so the single SQL builders run only once.
+     */
+    @State(Scope.Thread)
+    public static class Rows {
+        @Param({"10", "1000"})
+        public int rows;
+    }
+}
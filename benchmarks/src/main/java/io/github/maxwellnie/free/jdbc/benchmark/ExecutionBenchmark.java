@@ -0,0 +1,94 @@
+package io.github.maxwellnie.free.jdbc.benchmark;
+
+import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.batch.BoundBatchSqlBuilder;
+import io.github.maxwellnie.free.jdbc.single.BoundSingleSqlBuilder;
+import io.github.maxwellnie.free.jdbc.statement.PreparedIntegratedStatement;
+import io.github.maxwellnie.free.jdbc.statement.PreparedStatementCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-row execution compared with batch execution at several batch sizes.
+ * Scores are per inserted row.
+ *
+ * @author Maxwell Nie
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(ExecutionBenchmark.ROWS)
+public class ExecutionBenchmark {
+    static final int ROWS = 1000;
+    private Connection connection;
+    private PreparedStatementCache statementCache;
+    private BatchSql batchSql;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = H2Database.open("execution");
+        statementCache = new PreparedStatementCache(connection);
+        BoundBatchSqlBuilder builder = new BoundBatchSqlBuilder(5).appendSingleSql(H2Database.INSERT_SQL);
+        for (int i = 0; i < ROWS; i++)
+            builder.appendBatchSqlParameters((long) H2Database.SEEDED_ROWS + i, "user" + i, "user" + i + "@example.com", 30, 1.5);
+        batchSql = builder.build();
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() throws SQLException {
+        H2Database.reset(connection);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        statementCache.close();
+        H2Database.close(connection);
+    }
+
+    @Benchmark
+    public int singleRowUpdates() {
+        int count = 0;
+        try (PreparedIntegratedStatement statement = new PreparedIntegratedStatement(statementCache)) {
+            for (int i = 0; i < ROWS; i++)
+                count += statement.executeUpdate(new BoundSingleSqlBuilder(5).appendSql(H2Database.INSERT_SQL)
+                        .appendSqlParameters((long) H2Database.SEEDED_ROWS + i, "user" + i, "user" + i + "@example.com", 30, 1.5)
+                        .build());
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int[] chunkedBatch(BatchSize batchSize) {
+        try (PreparedIntegratedStatement statement = new PreparedIntegratedStatement(statementCache)) {
+            return statement.executeBatch(batchSql, batchSize.batchSize);
+        }
+    }
+
+    /**
+     * Batch sizes of the batch benchmark, kept out of the benchmark class so single-row execution runs only once.
+     */
+    @State(Scope.Thread)
+    public static class BatchSize {
+        @Param({"10", "100", "1000"})
+        public int batchSize;
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.maxwellnie.free.jdbc.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Embedded in-memory H2 database shared by the benchmarks.
+ *
+ * @author Maxwell Nie
+ */
+final class H2Database {
+    static final int SEEDED_ROWS = 1000;
+    static final String INSERT_SQL = "INSERT INTO bench_user(id, name, email, age, balance) VALUES(?, ?, ?, ?, ?)";
+    static final String SELECT_BY_ID_SQL = "SELECT id, name, email, age, balance FROM bench_user WHERE id = ?";
+    static final String SELECT_ALL_SQL = "SELECT id, name, email, age, balance FROM bench_user ORDER BY id";
+
+    private H2Database() {
+    }
+
+    /**
+     * Opens a connection to a fresh database with the bench_user table seeded with {@link #SEEDED_ROWS} rows.
+     */
+    static Connection open(String name) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_user");
+            statement.execute("CREATE TABLE bench_user(id BIGINT PRIMARY KEY, name VARCHAR(64), email VARCHAR(128), age INT, balance DOUBLE)");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (int i = 0; i < SEEDED_ROWS; i++) {
+                statement.setLong(1, i);
+                statement.setString(2, "user" + i);
+                statement.setString(3, "user" + i + "@example.com");
+                statement.setInt(4, 20 + i % 50);
+                statement.setDouble(5, i * 1.5);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        return connection;
+    }
+
+    /**
+     * Deletes the rows inserted by a benchmark, keeping the seeded ones.
+     */
+    static void reset(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM bench_user WHERE id >= " + SEEDED_ROWS);
+        }
+    }
+
+    static void close(Connection connection) throws SQLException {
+        if (connection != null) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.maxwellnie.free.jdbc.benchmark;
+
+import io.github.maxwellnie.free.jdbc.single.BoundSingleSqlBuilder;
+import io.github.maxwellnie.free.jdbc.statement.PreparedIntegratedStatement;
+import io.github.maxwellnie.free.jdbc.statement.PreparedStatementCache;
+import io.github.maxwellnie.free.jdbc.statement.ResultParser;
+import io.github.maxwellnie.free.jdbc.statement.ResultParserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the statement wrappers relative to raw JDBC for a primary key lookup.
+ *
+ * @author Maxwell Nie
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RawJdbcOverheadBenchmark {
+    private static final ResultParser<PreparedStatement, Boolean, String> NAME_PARSER = (statement, hasResultSet) -> {
+        try (ResultSet resultSet = statement.getResultSet()) {
+            return resultSet.next() ? resultSet.getString(2) : null;
+        } catch (SQLException e) {
+            throw new ResultParserException(e);
+        }
+    };
+    private Connection connection;
+    private PreparedStatement rawStatement;
+    private PreparedStatementCache statementCache;
+    private long id;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = H2Database.open("overhead");
+        rawStatement = connection.prepareStatement(H2Database.SELECT_BY_ID_SQL);
+        statementCache = new PreparedStatementCache(connection);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        rawStatement.close();
+        statementCache.close();
+        H2Database.close(connection);
+    }
+
+    private long nextId() {
+        id = (id + 1) % H2Database.SEEDED_ROWS;
+        return id;
+    }
+
+    @Benchmark
+    public String rawJdbcPrepared() throws SQLException {
+        rawStatement.setLong(1, nextId());
+        try (ResultSet resultSet = rawStatement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(2) : null;
+        }
+    }
+
+    @Benchmark
+    public String rawJdbcPrepareEveryCall() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(H2Database.SELECT_BY_ID_SQL)) {
+            statement.setLong(1, nextId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(2) : null;
+            }
+        }
+    }
+
+    @Benchmark
+    public String integratedStatement() {
+        try (PreparedIntegratedStatement statement = new PreparedIntegratedStatement(connection)) {
+            return statement.executeQuery(new BoundSingleSqlBuilder(1).appendSql(H2Database.SELECT_BY_ID_SQL).appendSqlParameter(nextId()).build(), NAME_PARSER);
+        }
+    }
+
+    @Benchmark
+    public String integratedStatementCached() {
+        try (PreparedIntegratedStatement statement = new PreparedIntegratedStatement(statementCache)) {
+            return statement.executeQuery(new BoundSingleSqlBuilder(1).appendSql(H2Database.SELECT_BY_ID_SQL).appendSqlParameter(nextId()).build(), NAME_PARSER);
+        }
+    }
+}
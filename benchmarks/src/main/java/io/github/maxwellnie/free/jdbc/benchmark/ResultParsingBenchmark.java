@@ -0,0 +1,94 @@
+package io.github.maxwellnie.free.jdbc.benchmark;
+
+import io.github.maxwellnie.free.jdbc.mapping.BeanMapper;
+import io.github.maxwellnie.free.jdbc.single.SingleSql;
+import io.github.maxwellnie.free.jdbc.single.SingleSqlBuilder;
+import io.github.maxwellnie.free.jdbc.statement.PreparedIntegratedStatement;
+import io.github.maxwellnie.free.jdbc.statement.PreparedStatementCache;
+import io.github.maxwellnie.free.jdbc.statement.ResultParser;
+import io.github.maxwellnie.free.jdbc.statement.ResultParserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Mapping of a result set of {@link H2Database#SEEDED_ROWS} rows with a hand-written parser,
+ * the bean mapper and the lazy stream.
+ *
+ * @author Maxwell Nie
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultParsingBenchmark {
+    private static final ResultParser<PreparedStatement, Boolean, List<BenchUser>> HAND_WRITTEN = (statement, hasResultSet) -> {
+        try (ResultSet resultSet = statement.getResultSet()) {
+            List<BenchUser> users = new ArrayList<>();
+            while (resultSet.next())
+                users.add(new BenchUser(resultSet.getLong("id"), resultSet.getString("name"), resultSet.getString("email"),
+                        resultSet.getInt("age"), resultSet.getDouble("balance")));
+            return users;
+        } catch (SQLException e) {
+            throw new ResultParserException(e);
+        }
+    };
+    private final SingleSql selectAll = new SingleSqlBuilder().appendSql(H2Database.SELECT_ALL_SQL).build();
+    private Connection connection;
+    private PreparedStatementCache statementCache;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = H2Database.open("parsing");
+        statementCache = new PreparedStatementCache(connection);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        statementCache.close();
+        H2Database.close(connection);
+    }
+
+    @Benchmark
+    public List<BenchUser> handWrittenParser() {
+        try (PreparedIntegratedStatement statement = new PreparedIntegratedStatement(statementCache)) {
+            return statement.executeQuery(selectAll, HAND_WRITTEN);
+        }
+    }
+
+    @Benchmark
+    public List<BenchUser> beanMapper() {
+        try (PreparedIntegratedStatement statement = new PreparedIntegratedStatement(statementCache)) {
+            return statement.executeQuery(selectAll, BeanMapper.of(BenchUser.class).resultParser(selectAll.getSqlString()));
+        }
+    }
+
+    @Benchmark
+    public List<BenchUser> beanMapperStream() {
+        try (Stream<BenchUser> users = new PreparedIntegratedStatement(statementCache)
+                .executeQueryStream(selectAll, BeanMapper.of(BenchUser.class).rowMapper(selectAll.getSqlString()))) {
+            return users.collect(Collectors.toList());
+        }
+    }
+}
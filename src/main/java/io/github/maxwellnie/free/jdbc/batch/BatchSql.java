@@ -1,21 +1,30 @@
 package io.github.maxwellnie.free.jdbc.batch;
 
 import io.github.maxwellnie.free.jdbc.Sql;
+import io.github.maxwellnie.free.jdbc.statement.ParameterBinders;
 import io.github.maxwellnie.free.jdbc.statement.ParametersHandler;
 
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
 
 /**
  * @author Maxwell Nie
  */
 public interface BatchSql extends Sql {
+    /**
+     * Binds the parameters of one batch row, without adding it to the batch.
+     */
+    ParametersHandler<PreparedStatement, List<Object>> BATCH_ROW_PARAMETERS_HANDLER = (statement, parameters) -> {
+        for (int j = 0; j < parameters.size(); j++) {
+            ParameterBinders.bind(statement, j + 1, parameters.get(j));
+        }
+    };
+
     ParametersHandler<PreparedStatement, BatchSql> BATCH_SQL_PARAMETERS_HANDLER = (statement, sql) -> {
-        for (int i = 0; i < sql.getParamsLists().size(); i++) {
-            List<Object> parameters = sql.getParamsLists().get(i);
-            for (int j = 0; j < parameters.size(); j++) {
-                statement.setObject(j + 1, parameters.get(j));
-            }
+        RowCursor cursor = sql.openRowCursor();
+        while (cursor.bindNext(statement)) {
             statement.addBatch();
         }
     };
@@ -23,4 +32,38 @@ public interface BatchSql extends Sql {
     String getSqlString();
 
     List<List<Object>> getParamsLists();
+
+    /**
+     * Opens a cursor over the rows of this batch. Execution paths bind rows through the cursor,
+     * so implementations that do not keep their rows in a list can feed the statement lazily.
+     * The default cursor resolves the {@link io.github.maxwellnie.free.jdbc.statement.ParameterBinder} of each column
+     * once and reuses it for the following rows.
+     *
+     * @return Cursor positioned before the first row
+     */
+    default RowCursor openRowCursor() {
+        Iterator<List<Object>> iterator = getParamsLists().iterator();
+        ParameterBinders.ColumnBinders columnBinders = new ParameterBinders.ColumnBinders();
+        return statement -> {
+            if (!iterator.hasNext())
+                return false;
+            columnBinders.bindRow(statement, iterator.next());
+            return true;
+        };
+    }
+
+    /**
+     * Cursor over the rows of a batch SQL.
+     */
+    @FunctionalInterface
+    interface RowCursor {
+        /**
+         * Binds the parameters of the next row into the statement, without adding it to the batch.
+         *
+         * @param statement Statement to bind the row into
+         * @return true if a row was bound, false if there are no more rows
+         * @throws SQLException If a parameter cannot be bound
+         */
+        boolean bindNext(PreparedStatement statement) throws SQLException;
+    }
 }
@@ -0,0 +1,375 @@
+package io.github.maxwellnie.free.jdbc.batch;
+
+import io.github.maxwellnie.free.jdbc.AbstractSqlBuilder;
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+import io.github.maxwellnie.free.jdbc.statement.ParameterBinders;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A batch SQL builder that stores parameters column by column in growable primitive arrays.
+ * int, long, double and boolean values are neither boxed nor wrapped in a list per row,
+ * and they are bound with the matching typed setter of {@link PreparedStatement}.
+ * <p>
+ * A row is filled by appending one value for every column, in column order:
+ * <pre><code>
+ *   ColumnarBatchSqlBuilder builder = new ColumnarBatchSqlBuilder(ColumnType.LONG, ColumnType.OBJECT, ColumnType.DOUBLE)
+ *           .appendSingleSql("INSERT INTO orders(id, name, amount) VALUES(?, ?, ?)");
+ *   for (Order order : orders)
+ *       builder.appendLong(order.id).appendObject(order.name).appendDouble(order.amount);
+ *   BatchSql batchSql = builder.build();
+ * </code></pre>
+ * The row is complete once its last column has been appended.
+ *
+ * @author Maxwell Nie
+ */
+public class ColumnarBatchSqlBuilder extends AbstractSqlBuilder<BatchSql, Object> {
+    private static final int DEFAULT_CAPACITY = 16;
+    protected final ColumnType[] columnTypes;
+    protected final Column[] columns;
+    protected int rowCount;
+    protected int columnIndex;
+
+    /**
+     * @param columnTypes Type of each parameter column, at least one column is required
+     * @throws SqlBuildException if no column type is given
+     */
+    public ColumnarBatchSqlBuilder(ColumnType... columnTypes) {
+        this(new StringBuilder(), DEFAULT_CAPACITY, columnTypes);
+    }
+
+    /**
+     * @param sqlStringBuilder The StringBuilder containing the base SQL string for the batch operation.
+     * @param initialRows      Number of rows to allocate column storage for up front
+     * @param columnTypes      Type of each parameter column, at least one column is required
+     * @throws SqlBuildException if no column type is given
+     */
+    public ColumnarBatchSqlBuilder(StringBuilder sqlStringBuilder, int initialRows, ColumnType... columnTypes) {
+        super(sqlStringBuilder);
+        if (columnTypes == null || columnTypes.length == 0)
+            throw new SqlBuildException("At least one column type is required.");
+        this.columnTypes = columnTypes.clone();
+        this.columns = new Column[columnTypes.length];
+        for (int i = 0; i < columnTypes.length; i++) {
+            if (columnTypes[i] == null)
+                throw new SqlBuildException("Column type cannot be null, column: " + (i + 1));
+            columns[i] = new Column(columnTypes[i], Math.max(initialRows, 1));
+        }
+    }
+
+    public ColumnarBatchSqlBuilder appendSingleSql(String sql) {
+        sqlStringBuilder.append(sql);
+        return this;
+    }
+
+    public ColumnarBatchSqlBuilder appendInt(int value) {
+        Column column = nextColumn(ColumnType.INT);
+        column.ints[rowCount] = value;
+        return completeColumn();
+    }
+
+    public ColumnarBatchSqlBuilder appendLong(long value) {
+        Column column = nextColumn(ColumnType.LONG);
+        column.longs[rowCount] = value;
+        return completeColumn();
+    }
+
+    public ColumnarBatchSqlBuilder appendDouble(double value) {
+        Column column = nextColumn(ColumnType.DOUBLE);
+        column.doubles[rowCount] = value;
+        return completeColumn();
+    }
+
+    public ColumnarBatchSqlBuilder appendBoolean(boolean value) {
+        Column column = nextColumn(ColumnType.BOOLEAN);
+        column.booleans[rowCount] = value;
+        return completeColumn();
+    }
+
+    public ColumnarBatchSqlBuilder appendObject(Object value) {
+        if (value == null)
+            return appendNull();
+        Column column = nextColumn(ColumnType.OBJECT);
+        column.objects[rowCount] = value;
+        return completeColumn();
+    }
+
+    /**
+     * Appends SQL NULL to the next column, whatever its type.
+     */
+    public ColumnarBatchSqlBuilder appendNull() {
+        columns[columnIndex].setNull(rowCount);
+        return completeColumn();
+    }
+
+    /**
+     * @return Number of complete rows appended so far
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    private Column nextColumn(ColumnType type) {
+        Column column = columns[columnIndex];
+        if (column.type != type)
+            throw new SqlBuildException("Column type mismatch at column " + (columnIndex + 1) + ": expected " + column.type + ", but got " + type + ".");
+        column.ensureCapacity(rowCount + 1);
+        return column;
+    }
+
+    private ColumnarBatchSqlBuilder completeColumn() {
+        if (++columnIndex == columns.length) {
+            columnIndex = 0;
+            rowCount++;
+        }
+        return this;
+    }
+
+    /**
+     * Builds the batch SQL. The column storage is shared with this builder rather than copied;
+     * rows appended afterwards are not visible to the built batch SQL.
+     *
+     * @throws SqlBuildException if the last row is incomplete
+     */
+    @Override
+    public BatchSql build() throws SqlBuildException {
+        if (columnIndex != 0)
+            throw new SqlBuildException("Incomplete row " + (rowCount + 1) + ": expected " + columns.length + " parameters, but got " + columnIndex + " parameters.");
+        return new ColumnarBatchSqlImpl(sqlStringBuilder.toString(), columns.clone(), rowCount);
+    }
+
+    public enum ColumnType {
+        INT(Types.INTEGER),
+        LONG(Types.BIGINT),
+        DOUBLE(Types.DOUBLE),
+        BOOLEAN(Types.BOOLEAN),
+        OBJECT(Types.NULL);
+
+        final int sqlType;
+
+        ColumnType(int sqlType) {
+            this.sqlType = sqlType;
+        }
+    }
+
+    static final class Column {
+        final ColumnType type;
+        int[] ints;
+        long[] longs;
+        double[] doubles;
+        boolean[] booleans;
+        Object[] objects;
+        long[] nulls;
+
+        Column(ColumnType type, int capacity) {
+            this.type = type;
+            switch (type) {
+                case INT:
+                    ints = new int[capacity];
+                    break;
+                case LONG:
+                    longs = new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles = new double[capacity];
+                    break;
+                case BOOLEAN:
+                    booleans = new boolean[capacity];
+                    break;
+                case OBJECT:
+                    objects = new Object[capacity];
+                    break;
+            }
+        }
+
+        int capacity() {
+            switch (type) {
+                case INT:
+                    return ints.length;
+                case LONG:
+                    return longs.length;
+                case DOUBLE:
+                    return doubles.length;
+                case BOOLEAN:
+                    return booleans.length;
+                default:
+                    return objects.length;
+            }
+        }
+
+        void ensureCapacity(int rows) {
+            int capacity = capacity();
+            if (rows <= capacity)
+                return;
+            int newCapacity = Math.max(capacity + (capacity >> 1), rows);
+            switch (type) {
+                case INT:
+                    ints = Arrays.copyOf(ints, newCapacity);
+                    break;
+                case LONG:
+                    longs = Arrays.copyOf(longs, newCapacity);
+                    break;
+                case DOUBLE:
+                    doubles = Arrays.copyOf(doubles, newCapacity);
+                    break;
+                case BOOLEAN:
+                    booleans = Arrays.copyOf(booleans, newCapacity);
+                    break;
+                case OBJECT:
+                    objects = Arrays.copyOf(objects, newCapacity);
+                    break;
+            }
+        }
+
+        void setNull(int row) {
+            ensureCapacity(row + 1);
+            int word = row >>> 6;
+            if (nulls == null)
+                nulls = new long[Math.max(word + 1, (capacity() + 63) >>> 6)];
+            else if (word >= nulls.length)
+                nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length << 1));
+            nulls[word] |= 1L << row;
+        }
+
+        boolean isNull(int row) {
+            int word = row >>> 6;
+            return nulls != null && word < nulls.length && (nulls[word] & (1L << row)) != 0;
+        }
+
+        void bind(PreparedStatement statement, int parameterIndex, int row, ParameterBinders.ColumnBinders objectBinders) throws SQLException {
+            if (isNull(row)) {
+                if (type == ColumnType.OBJECT)
+                    statement.setObject(parameterIndex, null);
+                else
+                    statement.setNull(parameterIndex, type.sqlType);
+                return;
+            }
+            switch (type) {
+                case INT:
+                    statement.setInt(parameterIndex, ints[row]);
+                    break;
+                case LONG:
+                    statement.setLong(parameterIndex, longs[row]);
+                    break;
+                case DOUBLE:
+                    statement.setDouble(parameterIndex, doubles[row]);
+                    break;
+                case BOOLEAN:
+                    statement.setBoolean(parameterIndex, booleans[row]);
+                    break;
+                case OBJECT:
+                    objectBinders.bind(statement, parameterIndex - 1, objects[row]);
+                    break;
+            }
+        }
+
+        Object get(int row) {
+            if (isNull(row))
+                return null;
+            switch (type) {
+                case INT:
+                    return ints[row];
+                case LONG:
+                    return longs[row];
+                case DOUBLE:
+                    return doubles[row];
+                case BOOLEAN:
+                    return booleans[row];
+                default:
+                    return objects[row];
+            }
+        }
+
+        Column snapshot() {
+            Column column = new Column(type, 0);
+            column.ints = ints;
+            column.longs = longs;
+            column.doubles = doubles;
+            column.booleans = booleans;
+            column.objects = objects;
+            column.nulls = nulls;
+            return column;
+        }
+    }
+
+    public static class ColumnarBatchSqlImpl implements BatchSql {
+        final String sqlString;
+        final Column[] columns;
+        final int rowCount;
+
+        ColumnarBatchSqlImpl(String sqlString, Column[] columns, int rowCount) {
+            this.sqlString = sqlString;
+            this.columns = columns;
+            this.rowCount = rowCount;
+            for (int i = 0; i < columns.length; i++)
+                columns[i] = columns[i].snapshot();
+        }
+
+        @Override
+        public String getSqlString() {
+            return sqlString;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        /**
+         * Returns a read-only view of the rows. Values are boxed on access, prefer {@link #openRowCursor()} for binding.
+         */
+        @Override
+        public List<List<Object>> getParamsLists() {
+            return new AbstractList<List<Object>>() {
+                @Override
+                public List<Object> get(int row) {
+                    if (row < 0 || row >= rowCount)
+                        throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + rowCount);
+                    return new AbstractList<Object>() {
+                        @Override
+                        public Object get(int column) {
+                            return columns[column].get(row);
+                        }
+
+                        @Override
+                        public int size() {
+                            return columns.length;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return rowCount;
+                }
+            };
+        }
+
+        @Override
+        public RowCursor openRowCursor() {
+            int[] row = {0};
+            ParameterBinders.ColumnBinders objectBinders = new ParameterBinders.ColumnBinders();
+            return statement -> {
+                if (row[0] == rowCount)
+                    return false;
+                for (int i = 0; i < columns.length; i++)
+                    columns[i].bind(statement, i + 1, row[0], objectBinders);
+                row[0]++;
+                return true;
+            };
+        }
+
+        @Override
+        public String getSqlInfo() {
+            return "sql:" + sqlString + System.lineSeparator() + "with parameters: " + getParamsLists();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package io.github.maxwellnie.free.jdbc.batch;
+
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+import io.github.maxwellnie.free.jdbc.statement.ParameterBinders;
+import io.github.maxwellnie.free.jdbc.statement.ParametersHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rewrites a single-row {@code INSERT ... VALUES (?, ?)} into multi-row {@code INSERT ... VALUES (?, ?), (?, ?), ...}
+ * statements, which drivers like MySQL and PostgreSQL execute much faster than a JDBC batch of single-row inserts.
+ * <p>
+ * The insert is parsed once and cached by SQL string; the rewritten SQL is cached per number of rows.
+ * Clauses after the VALUES tuple, such as {@code ON CONFLICT DO NOTHING}, are kept once at the end of the rewritten
+ * statement, as long as they contain no placeholders.
+ *
+ * @author Maxwell Nie
+ * @see io.github.maxwellnie.free.jdbc.statement.PreparedIntegratedStatement#executeMultiRowInsert(BatchSql, int)
+ */
+public final class MultiRowInsert {
+    /**
+     * Bind parameter limit of PostgreSQL, the lowest of the common drivers.
+     */
+    public static final int DEFAULT_MAX_BIND_PARAMETERS = 32767;
+    static final int MAX_CACHED_INSERTS = 256;
+    static final int MAX_CACHED_ROW_COUNTS = 64;
+    private static final Map<String, MultiRowInsert> INSERTS = new ConcurrentHashMap<>();
+    private final String sql;
+    private final String prefix;
+    private final String tuple;
+    private final String suffix;
+    private final int parametersPerRow;
+    private final Map<Integer, String> rewritten = new ConcurrentHashMap<>();
+    private final ParametersHandler<PreparedStatement, List<List<Object>>> parametersHandler;
+
+    private MultiRowInsert(String sql, String prefix, String tuple, String suffix, int parametersPerRow) {
+        this.sql = sql;
+        this.prefix = prefix;
+        this.tuple = tuple;
+        this.suffix = suffix;
+        this.parametersPerRow = parametersPerRow;
+        this.parametersHandler = (statement, rows) -> {
+            ParameterBinders.ColumnBinders columnBinders = new ParameterBinders.ColumnBinders();
+            for (int i = 0; i < rows.size(); i++) {
+                List<Object> row = rows.get(i);
+                if (row.size() != parametersPerRow)
+                    throw new SqlBuildException("Batch row has " + row.size() + " parameters but the insert expects " + parametersPerRow + ", SQL: " + sql);
+                columnBinders.bindRow(statement, row, i * parametersPerRow);
+            }
+        };
+    }
+
+    /**
+     * Returns the rewriter of the insert, parsing it on first use.
+     *
+     * @param sql Single-row insert with positional placeholders
+     * @throws SqlBuildException if the SQL is not a single-row INSERT ... VALUES with placeholders only in the tuple
+     */
+    public static MultiRowInsert of(String sql) throws SqlBuildException {
+        if (sql == null)
+            throw new SqlBuildException("Insert SQL cannot be null");
+        MultiRowInsert insert = INSERTS.get(sql);
+        if (insert != null)
+            return insert;
+        insert = parse(sql);
+        if (INSERTS.size() < MAX_CACHED_INSERTS)
+            INSERTS.putIfAbsent(sql, insert);
+        return insert;
+    }
+
+    private static MultiRowInsert parse(String sql) {
+        int length = sql.length();
+        int valuesEnd = -1;
+        int tupleStart = -1;
+        int tupleEnd = -1;
+        int depth = 0;
+        int tupleParameters = 0;
+        int otherParameters = 0;
+        String firstWord = null;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : '\0';
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = sql.indexOf(c, i + 1);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '-' && next == '-') {
+                int end = sql.indexOf('\n', i + 2);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && next == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (Character.isLetter(c) || c == '_') {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_'))
+                    end++;
+                String word = sql.substring(i, end).toUpperCase(Locale.ROOT);
+                if (firstWord == null)
+                    firstWord = word;
+                else if (valuesEnd < 0 && depth == 0 && word.equals("VALUES"))
+                    valuesEnd = end;
+                i = end;
+            } else {
+                if (c == '?') {
+                    if (tupleStart >= 0 && tupleEnd < 0)
+                        tupleParameters++;
+                    else
+                        otherParameters++;
+                } else if (c == '(') {
+                    if (valuesEnd >= 0 && tupleStart < 0 && depth == 0) {
+                        if (!sql.substring(valuesEnd, i).trim().isEmpty())
+                            break;
+                        tupleStart = i;
+                    }
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                    if (tupleStart >= 0 && tupleEnd < 0 && depth == 0)
+                        tupleEnd = i + 1;
+                }
+                i++;
+            }
+        }
+        if (!"INSERT".equals(firstWord) || tupleStart < 0 || tupleEnd < 0)
+            throw new SqlBuildException("Multi-row rewriting requires a single-row INSERT ... VALUES (...) statement, Actual: " + sql);
+        if (otherParameters > 0)
+            throw new SqlBuildException("Multi-row rewriting requires all placeholders inside the VALUES tuple, Actual: " + sql);
+        if (tupleParameters == 0)
+            throw new SqlBuildException("Multi-row rewriting requires at least one placeholder in the VALUES tuple, Actual: " + sql);
+        return new MultiRowInsert(sql, sql.substring(0, tupleStart), sql.substring(tupleStart, tupleEnd), sql.substring(tupleEnd), tupleParameters);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return Number of placeholders in one VALUES tuple
+     */
+    public int getParametersPerRow() {
+        return parametersPerRow;
+    }
+
+    /**
+     * @param maxBindParameters Maximum number of bind parameters of one statement
+     * @return Number of rows fitting in one rewritten statement, at least 1
+     */
+    public int getRowsPerStatement(int maxBindParameters) {
+        return Math.max(1, maxBindParameters / parametersPerRow);
+    }
+
+    /**
+     * Returns the insert rewritten for the number of rows, cached per row count.
+     *
+     * @param rows Number of VALUES tuples, must be greater than 0
+     */
+    public String sqlFor(int rows) {
+        if (rows <= 0)
+            throw new SqlBuildException("Row count must be greater than 0, Actual: " + rows);
+        if (rows == 1)
+            return sql;
+        String cached = rewritten.get(rows);
+        if (cached != null)
+            return cached;
+        StringBuilder builder = new StringBuilder(prefix.length() + (tuple.length() + 2) * rows + suffix.length()).append(prefix).append(tuple);
+        for (int i = 1; i < rows; i++)
+            builder.append(", ").append(tuple);
+        String rewrittenSql = builder.append(suffix).toString();
+        if (rewritten.size() < MAX_CACHED_ROW_COUNTS)
+            rewritten.putIfAbsent(rows, rewrittenSql);
+        return rewrittenSql;
+    }
+
+    /**
+     * @return Handler binding a list of rows side by side into a statement prepared with {@link #sqlFor(int)}
+     */
+    public ParametersHandler<PreparedStatement, List<List<Object>>> getParametersHandler() {
+        return parametersHandler;
+    }
+
+    /**
+     * Reconstructs the per-row update counts of one multi-row statement. When the statement reports exactly one row
+     * per tuple every row gets 1, otherwise, for example with upserts, every row gets {@link Statement#SUCCESS_NO_INFO}.
+     *
+     * @param updateCount Update count of the multi-row statement
+     * @param counts      Per-row counts to fill
+     * @param from        Index of the first row of the statement
+     * @param rows        Number of rows of the statement
+     */
+    public static void fillUpdateCounts(long updateCount, int[] counts, int from, int rows) {
+        int count = updateCount == rows ? 1 : Statement.SUCCESS_NO_INFO;
+        for (int i = from; i < from + rows; i++)
+            counts[i] = count;
+    }
+
+    @Override
+    public String toString() {
+        return "MultiRowInsert{sql=" + sql + ", parametersPerRow=" + parametersPerRow + "}";
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.maxwellnie.free.jdbc.batch;
+
+import io.github.maxwellnie.free.jdbc.statement.ParameterBinders;
+import io.github.maxwellnie.free.jdbc.statement.SqlExecutionException;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Batch SQL whose rows are pulled lazily from an {@link Iterator} while the statement consumes them.
+ * Rows are never collected into a list, so combined with
+ * {@link io.github.maxwellnie.free.jdbc.statement.PreparedIntegratedStatement#executeBatch(BatchSql, int) chunked execution}
+ * heap use does not depend on the number of rows.
+ * <p>
+ * The rows can only be consumed once.
+ *
+ * @author Maxwell Nie
+ */
+public class StreamingBatchSql implements BatchSql {
+    private final String sqlString;
+    private final Iterator<? extends List<?>> rows;
+    private boolean consumed;
+
+    /**
+     * @param sqlString SQL statement executed for every row
+     * @param rows      Iterator supplying the parameters of each row
+     */
+    public StreamingBatchSql(String sqlString, Iterator<? extends List<?>> rows) {
+        if (rows == null)
+            throw new SqlExecutionException("Rows iterator cannot be null");
+        this.sqlString = sqlString;
+        this.rows = rows;
+    }
+
+    public static StreamingBatchSql of(String sqlString, Iterator<? extends List<?>> rows) {
+        return new StreamingBatchSql(sqlString, rows);
+    }
+
+    public static StreamingBatchSql of(String sqlString, Spliterator<? extends List<?>> rows) {
+        return new StreamingBatchSql(sqlString, Spliterators.iterator(rows));
+    }
+
+    /**
+     * Creates a streaming batch SQL from a stream. The stream is not closed by this batch.
+     */
+    public static StreamingBatchSql of(String sqlString, Stream<? extends List<?>> rows) {
+        return new StreamingBatchSql(sqlString, rows.iterator());
+    }
+
+    /**
+     * Creates a streaming batch SQL from a supplier, which signals the end of the rows by returning null.
+     */
+    public static StreamingBatchSql of(String sqlString, Supplier<? extends List<?>> rows) {
+        return new StreamingBatchSql(sqlString, new SupplierIterator(rows));
+    }
+
+    @Override
+    public String getSqlString() {
+        return sqlString;
+    }
+
+    /**
+     * Streaming batch SQL does not keep its rows, use {@link #openRowCursor()} instead.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public List<List<Object>> getParamsLists() {
+        throw new UnsupportedOperationException("Streaming batch SQL does not hold its rows in memory, use openRowCursor() instead");
+    }
+
+    /**
+     * @throws SqlExecutionException if the rows have already been consumed
+     */
+    @Override
+    public synchronized RowCursor openRowCursor() {
+        if (consumed)
+            throw new SqlExecutionException("Streaming batch SQL rows can only be consumed once, SQL: " + sqlString);
+        consumed = true;
+        ParameterBinders.ColumnBinders columnBinders = new ParameterBinders.ColumnBinders();
+        return statement -> {
+            if (!rows.hasNext())
+                return false;
+            columnBinders.bindRow(statement, rows.next());
+            return true;
+        };
+    }
+
+    @Override
+    public String getSqlInfo() {
+        return "sql:" + sqlString + System.lineSeparator() + "with streamed parameters";
+    }
+
+    private static class SupplierIterator implements Iterator<List<?>> {
+        private final Supplier<? extends List<?>> supplier;
+        private List<?> next;
+        private boolean done;
+
+        SupplierIterator(Supplier<? extends List<?>> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = supplier.get();
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public List<?> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            List<?> row = next;
+            next = null;
+            return row;
+        }
+    }
+}
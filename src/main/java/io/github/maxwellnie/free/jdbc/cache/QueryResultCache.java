@@ -0,0 +1,408 @@
+package io.github.maxwellnie.free.jdbc.cache;
+
+import io.github.maxwellnie.free.jdbc.statement.StatementException;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Read-through cache of query results, keyed by the SQL, its bound parameters and the result parser.
+ * <pre><code>
+ *   QueryResultCache cache = new QueryResultCache(10_000, 64L &lt;&lt; 20).setTimeToLive(5, TimeUnit.MINUTES);
+ *   statement.setResultCache(cache);
+ *   List&lt;Country&gt; countries = statement.executeQuery(selectCountries, COUNTRY_PARSER);
+ * </code></pre>
+ * Entries are bounded by count and by estimated bytes and evicted with the CLOCK algorithm, an approximation of LRU
+ * in which a hit only sets a flag, so readers never lock. Concurrent misses of the same key are not coalesced.
+ * <p>
+ * Every cached query is tagged with the tables it reads. A write through a statement using the cache invalidates the
+ * entries tagged with the tables it touches in O(1), by moving the generation of each table; a query without tables
+ * is invalidated by any write, and a write whose tables cannot be told invalidates everything. Queries of a
+ * connection with auto-commit off bypass the cache, so uncommitted rows are never cached. Writes made in a
+ * transaction, or on connections that do not use the cache, should still be followed by
+ * {@link #invalidateTables(String...)} once they are committed, since other connections may have cached the rows
+ * they replaced.
+ * <p>
+ * Cached results are shared between callers and must not be modified. The result parser must be reused between
+ * calls, since a new parser instance never hits.
+ *
+ * @author Maxwell Nie
+ */
+public class QueryResultCache {
+    private static final Object NULL_RESULT = new Object();
+    private static final int MAX_CACHED_SQL = 1024;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Map<String, AtomicLong> tableGenerations = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong[]> readTags = new ConcurrentHashMap<>();
+    private final Map<String, String[]> writeTags = new ConcurrentHashMap<>();
+    private final AtomicLong allGeneration = new AtomicLong();
+    private final AtomicLong writeGeneration = new AtomicLong();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+    private long timeToLiveNanos;
+    private ToLongFunction<Object> weigher = QueryResultCache::estimateSize;
+
+    /**
+     * @param maxEntries Maximum number of cached results, must be greater than 0
+     * @param maxBytes   Maximum estimated size of all cached results, must be greater than 0
+     */
+    public QueryResultCache(int maxEntries, long maxBytes) {
+        if (maxEntries <= 0)
+            throw new StatementException("Max entries must be greater than 0, Actual: " + maxEntries);
+        if (maxBytes <= 0)
+            throw new StatementException("Max bytes must be greater than 0, Actual: " + maxBytes);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Sets how long a result stays valid after it was loaded, 0 keeps it until it is evicted or invalidated.
+     */
+    public QueryResultCache setTimeToLive(long duration, TimeUnit unit) {
+        if (duration < 0)
+            throw new StatementException("Time to live cannot be negative, Actual: " + duration);
+        this.timeToLiveNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Sets the function estimating the size of a result in bytes, {@link #estimateSize(Object)} by default.
+     */
+    public QueryResultCache setWeigher(ToLongFunction<Object> weigher) {
+        if (weigher == null)
+            throw new StatementException("Weigher cannot be null");
+        this.weigher = weigher;
+        return this;
+    }
+
+    /**
+     * Returns the cached result of the query, loading and caching it on a miss.
+     *
+     * @param sql        SQL of the query
+     * @param parameters Parameters bound to the query, copied into the key
+     * @param parser     Result parser of the query, compared with equals
+     * @param loader     Executes the query on a miss
+     * @return Cached or loaded result
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(String sql, List<Object> parameters, Object parser, Supplier<R> loader) {
+        Key key = new Key(sql, parameters, parser);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (isValid(entry)) {
+                entry.referenced = true;
+                hitCount.increment();
+                return entry.value == NULL_RESULT ? null : (R) entry.value;
+            }
+            remove(entry);
+        }
+        missCount.increment();
+        AtomicLong[] tags = tags(sql);
+        long[] generations = new long[tags.length];
+        for (int i = 0; i < tags.length; i++)
+            generations[i] = tags[i].get();
+        long all = tags.length == 0 ? writeGeneration.get() : allGeneration.get();
+        R result = loader.get();
+        Object value = result == null ? NULL_RESULT : result;
+        long weight = weigher.applyAsLong(value) + key.weight();
+        if (weight <= maxBytes) {
+            long expiresAt = timeToLiveNanos > 0 ? System.nanoTime() + timeToLiveNanos : 0;
+            put(new Entry(key, value, weight, tags, generations, all, expiresAt));
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates the entries of the tables written by the statement. Statements that do not write are ignored.
+     *
+     * @param sql SQL of an executed statement
+     */
+    public void invalidate(String sql) {
+        String[] tables = writeTags.get(sql);
+        if (tables == null) {
+            tables = SqlTables.writeTables(sql);
+            if (tables == null)
+                tables = new String[]{null};
+            if (writeTags.size() >= MAX_CACHED_SQL)
+                writeTags.clear();
+            writeTags.put(sql, tables);
+        }
+        if (tables.length == 1 && tables[0] == null)
+            return;
+        if (tables == SqlTables.ALL)
+            invalidateAll();
+        else
+            invalidateTables(tables);
+    }
+
+    /**
+     * Invalidates the entries of the tables, names are compared case insensitively without schema.
+     */
+    public void invalidateTables(String... tables) {
+        writeGeneration.incrementAndGet();
+        for (String table : tables) {
+            String[] names = SqlTables.readTables("FROM " + table);
+            for (String name : names)
+                generation(name).incrementAndGet();
+        }
+        invalidationCount.increment();
+    }
+
+    public void invalidateAll() {
+        writeGeneration.incrementAndGet();
+        allGeneration.incrementAndGet();
+        invalidationCount.increment();
+    }
+
+    /**
+     * Removes every entry, valid or not.
+     */
+    public void clear() {
+        invalidateAll();
+        for (Entry entry : entries.values())
+            remove(entry);
+        clock.clear();
+    }
+
+    private AtomicLong[] tags(String sql) {
+        AtomicLong[] tags = readTags.get(sql);
+        if (tags == null) {
+            String[] tables = SqlTables.readTables(sql);
+            tags = new AtomicLong[tables.length];
+            for (int i = 0; i < tables.length; i++)
+                tags[i] = generation(tables[i]);
+            if (readTags.size() >= MAX_CACHED_SQL)
+                readTags.clear();
+            readTags.put(sql, tags);
+        }
+        return tags;
+    }
+
+    private AtomicLong generation(String table) {
+        return tableGenerations.computeIfAbsent(table, name -> new AtomicLong());
+    }
+
+    private boolean isValid(Entry entry) {
+        if (entry.expiresAt != 0 && System.nanoTime() - entry.expiresAt > 0)
+            return false;
+        if (entry.tags.length == 0)
+            return entry.generation == writeGeneration.get();
+        if (entry.generation != allGeneration.get())
+            return false;
+        for (int i = 0; i < entry.tags.length; i++) {
+            if (entry.tags[i].get() != entry.generations[i])
+                return false;
+        }
+        return true;
+    }
+
+    private void put(Entry entry) {
+        Entry old = entries.put(entry.key, entry);
+        if (old != null && old.markRemoved())
+            bytes.add(-old.weight);
+        bytes.add(entry.weight);
+        clock.offer(entry);
+        if (entries.size() > maxEntries || bytes.sum() > maxBytes)
+            evict();
+    }
+
+    private void remove(Entry entry) {
+        if (entries.remove(entry.key, entry) && entry.markRemoved())
+            bytes.add(-entry.weight);
+    }
+
+    /**
+     * Sweeps the clock: a referenced entry gets a second chance, an unreferenced or invalid one is removed.
+     * Only one thread sweeps at a time, the others go on without waiting.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock())
+            return;
+        try {
+            int budget = entries.size() * 2 + 16;
+            while ((entries.size() > maxEntries || bytes.sum() > maxBytes) && budget-- > 0) {
+                Entry entry = clock.poll();
+                if (entry == null)
+                    break;
+                if (entry.removed.get())
+                    continue;
+                if (entry.referenced && isValid(entry)) {
+                    entry.referenced = false;
+                    clock.offer(entry);
+                    continue;
+                }
+                if (entries.remove(entry.key, entry))
+                    evictionCount.increment();
+                if (entry.markRemoved())
+                    bytes.add(-entry.weight);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Estimated size of the cached results in bytes
+     */
+    public long getEstimatedBytes() {
+        return bytes.sum();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryResultCache{size=" + entries.size() + ", bytes=" + bytes.sum() + ", hits=" + hitCount.sum() +
+                ", misses=" + missCount.sum() + ", evictions=" + evictionCount.sum() + ", invalidations=" + invalidationCount.sum() + "}";
+    }
+
+    /**
+     * Estimates the heap size of a result: strings, boxed values, arrays, collections and maps are measured,
+     * large collections from a sample of their first elements, other objects count 64 bytes.
+     */
+    public static long estimateSize(Object value) {
+        return estimateSize(value, 0);
+    }
+
+    private static long estimateSize(Object value, int depth) {
+        if (value == null)
+            return 8;
+        if (value instanceof String)
+            return 40 + 2L * ((String) value).length();
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character)
+            return 16;
+        if (depth > 4)
+            return 64;
+        if (value instanceof Collection)
+            return 32 + sample(((Collection<?>) value).iterator(), ((Collection<?>) value).size(), depth);
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            long size = 48 + 32L * map.size();
+            size += sample(map.keySet().iterator(), map.size(), depth);
+            return size + sample(map.values().iterator(), map.size(), depth);
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            if (type.getComponentType().isPrimitive())
+                return 16 + 8L * length;
+            List<Object> elements = new ArrayList<>(Math.min(length, 16));
+            for (int i = 0; i < length && i < 16; i++)
+                elements.add(Array.get(value, i));
+            return 16 + sample(elements.iterator(), length, depth);
+        }
+        return 64;
+    }
+
+    private static long sample(Iterator<?> iterator, int size, int depth) {
+        long sampled = 0;
+        int count = 0;
+        while (count < 16 && iterator.hasNext()) {
+            sampled += 8 + estimateSize(iterator.next(), depth + 1);
+            count++;
+        }
+        return count == 0 ? 0 : sampled * size / count;
+    }
+
+    private static final class Key {
+        final String sql;
+        final List<Object> parameters;
+        final Object parser;
+        final int hash;
+
+        Key(String sql, List<Object> parameters, Object parser) {
+            this.sql = sql;
+            this.parameters = parameters == null || parameters.isEmpty() ? Collections.emptyList() : new ArrayList<>(parameters);
+            this.parser = parser;
+            this.hash = 31 * (31 * sql.hashCode() + this.parameters.hashCode()) + (parser == null ? 0 : parser.hashCode());
+        }
+
+        long weight() {
+            return 64 + estimateSize(parameters);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return hash == key.hash && sql.equals(key.sql) && parameters.equals(key.parameters) &&
+                    (parser == null ? key.parser == null : parser.equals(key.parser));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+        final Object value;
+        final long weight;
+        final AtomicLong[] tags;
+        final long[] generations;
+        final long generation;
+        final long expiresAt;
+        volatile boolean referenced;
+        final AtomicBoolean removed = new AtomicBoolean();
+
+        Entry(Key key, Object value, long weight, AtomicLong[] tags, long[] generations, long generation, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.tags = tags;
+            this.generations = generations;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Marks the entry removed, true for the one caller that has to release its bytes.
+         */
+        boolean markRemoved() {
+            return removed.compareAndSet(false, true);
+        }
+    }
+}
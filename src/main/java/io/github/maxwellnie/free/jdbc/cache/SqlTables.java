@@ -0,0 +1,205 @@
+package io.github.maxwellnie.free.jdbc.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds the tables a SQL statement reads or writes, for the table tags of {@link QueryResultCache}.
+ * <p>
+ * The scan is deliberately coarse: a table is every name following FROM, JOIN, INTO, UPDATE, TABLE or USING, and
+ * every name in a comma separated FROM list. Names are lower case without schema or quotes. Reporting too many
+ * tables only costs extra invalidations, so a write whose targets cannot be told is reported as touching every table.
+ *
+ * @author Maxwell Nie
+ */
+final class SqlTables {
+    /**
+     * Tables of a write that may touch any table.
+     */
+    static final String[] ALL = new String[0];
+    private static final int MAX_DEPTH = 64;
+
+    private SqlTables() {
+    }
+
+    /**
+     * @return Tables read by a query, empty if none could be found
+     */
+    static String[] readTables(String sql) {
+        return scan(tokenize(sql));
+    }
+
+    /**
+     * @return null if the statement does not write, {@link #ALL} if its targets are unknown, otherwise the tables it touches
+     */
+    static String[] writeTables(String sql) {
+        List<String> tokens = tokenize(sql);
+        if (tokens.isEmpty())
+            return null;
+        switch (tokens.get(0)) {
+            case "SELECT":
+            case "VALUES":
+            case "SHOW":
+            case "EXPLAIN":
+            case "DESCRIBE":
+            case "DESC":
+                return null;
+            case "WITH":
+                if (!(tokens.contains("INSERT") || tokens.contains("UPDATE") || tokens.contains("DELETE") || tokens.contains("MERGE")))
+                    return null;
+                return targets(tokens);
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "MERGE":
+            case "REPLACE":
+            case "UPSERT":
+            case "TRUNCATE":
+                return targets(tokens);
+            default:
+                return ALL;
+        }
+    }
+
+    private static String[] targets(List<String> tokens) {
+        String[] tables = scan(tokens);
+        return tables.length == 0 ? ALL : tables;
+    }
+
+    private static String[] scan(List<String> tokens) {
+        Set<String> tables = new LinkedHashSet<>();
+        boolean[] fromList = new boolean[MAX_DEPTH];
+        int depth = 0;
+        boolean expectTable = false;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            switch (token) {
+                case "(":
+                    if (depth + 1 < MAX_DEPTH)
+                        fromList[++depth] = false;
+                    expectTable = false;
+                    continue;
+                case ")":
+                    if (depth > 0)
+                        depth--;
+                    expectTable = false;
+                    continue;
+                case ",":
+                    expectTable = fromList[depth];
+                    continue;
+                case "FROM":
+                    fromList[depth] = true;
+                    expectTable = true;
+                    continue;
+                case "JOIN":
+                case "INTO":
+                case "UPDATE":
+                case "TABLE":
+                case "USING":
+                    expectTable = true;
+                    continue;
+                case "WHERE":
+                case "GROUP":
+                case "HAVING":
+                case "ORDER":
+                case "LIMIT":
+                case "UNION":
+                case "INTERSECT":
+                case "EXCEPT":
+                case "ON":
+                case "SET":
+                case "SELECT":
+                case "WINDOW":
+                case "FETCH":
+                case "OFFSET":
+                case "RETURNING":
+                case "FOR":
+                    fromList[depth] = false;
+                    expectTable = false;
+                    continue;
+                case "ONLY":
+                case "LATERAL":
+                case "IGNORE":
+                case "LOW_PRIORITY":
+                case "DELAYED":
+                case "IF":
+                case "EXISTS":
+                case "NOT":
+                    continue;
+                default:
+                    if (!expectTable || !isName(token))
+                        continue;
+            }
+            String name = token;
+            while (i + 2 < tokens.size() && tokens.get(i + 1).equals(".") && isName(tokens.get(i + 2))) {
+                i += 2;
+                name = tokens.get(i);
+            }
+            tables.add(unquote(name));
+            expectTable = false;
+        }
+        return tables.toArray(new String[0]);
+    }
+
+    private static boolean isName(String token) {
+        char c = token.charAt(0);
+        return Character.isLetter(c) || c == '_' || c == '"' || c == '`' || c == '[';
+    }
+
+    private static String unquote(String name) {
+        char c = name.charAt(0);
+        if (c == '"' || c == '`' || c == '[')
+            return name.substring(1, name.length() - 1).toLowerCase(Locale.ROOT);
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits the SQL into upper case words, quoted identifiers and punctuation, skipping literals and comments.
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'') {
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i++) == '\'') {
+                        if (i < length && sql.charAt(i) == '\'')
+                            i++;
+                        else
+                            break;
+                    }
+                }
+            } else if (c == '"' || c == '`' || c == '[') {
+                char close = c == '[' ? ']' : c;
+                int end = sql.indexOf(close, i + 1);
+                end = end < 0 ? length : end + 1;
+                if (end - i > 2)
+                    tokens.add(sql.substring(i, end));
+                i = end;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$' || sql.charAt(i) == '#'))
+                    i++;
+                tokens.add(sql.substring(start, i).toUpperCase(Locale.ROOT));
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.maxwellnie.free.jdbc.callable;
+
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+
+import java.sql.CallableStatement;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Batch SQL calling the procedure of a {@link CallablePlan} once per row of IN values, bound with the SQL types of
+ * the plan. Procedures with OUT parameters cannot be batched and are rejected when the batch is created.
+ * <p>
+ * The rows are pulled from the iterable while the statement consumes them, so an iterable that is not a list is
+ * never held in memory.
+ *
+ * @author Maxwell Nie
+ * @see io.github.maxwellnie.free.jdbc.statement.CallableIntegrateStatement#executeBatch(CallablePlan, Iterable, int)
+ */
+public final class CallableBatchSql implements BatchSql {
+    private final CallablePlan plan;
+    private final Iterable<Object[]> rows;
+
+    /**
+     * @param plan Compiled callable plan without OUT parameters
+     * @param rows One value array per call, holding one value per parameter
+     * @throws SqlBuildException if the plan has OUT parameters or the rows are null
+     */
+    public CallableBatchSql(CallablePlan plan, Iterable<Object[]> rows) throws SqlBuildException {
+        if (plan == null)
+            throw new SqlBuildException("Callable plan cannot be null");
+        if (plan.hasOutParameters())
+            throw new SqlBuildException("Callable batch cannot have OUT parameters, Expected: IN parameters only, Actual: " +
+                    plan.getOutParameterCount() + " OUT parameters for SQL: " + plan.getSql());
+        if (rows == null)
+            throw new SqlBuildException("Callable batch rows cannot be null");
+        this.plan = plan;
+        this.rows = rows;
+    }
+
+    public CallablePlan getPlan() {
+        return plan;
+    }
+
+    @Override
+    public String getSqlString() {
+        return plan.getSql();
+    }
+
+    /**
+     * Returns a read-only view of the rows.
+     *
+     * @throws UnsupportedOperationException if the rows are not a list
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<List<Object>> getParamsLists() {
+        if (!(rows instanceof List))
+            throw new UnsupportedOperationException("Callable batch rows are not a list, use openRowCursor() instead");
+        List<Object[]> list = (List<Object[]>) rows;
+        return new AbstractList<List<Object>>() {
+            @Override
+            public List<Object> get(int index) {
+                return Arrays.asList(list.get(index));
+            }
+
+            @Override
+            public int size() {
+                return list.size();
+            }
+        };
+    }
+
+    /**
+     * Opens a cursor binding the rows with the plan. The statement must be a {@link CallableStatement}.
+     */
+    @Override
+    public RowCursor openRowCursor() {
+        Iterator<Object[]> iterator = rows.iterator();
+        return statement -> {
+            if (!iterator.hasNext())
+                return false;
+            plan.bind((CallableStatement) statement, iterator.next());
+            return true;
+        };
+    }
+
+    @Override
+    public String getSqlInfo() {
+        return "sql:" + plan.getSql() + System.lineSeparator() + (rows instanceof List ? "with parameters: " + getParamsLists() : "with streamed parameters");
+    }
+}
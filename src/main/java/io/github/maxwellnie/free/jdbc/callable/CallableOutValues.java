@@ -0,0 +1,205 @@
+package io.github.maxwellnie.free.jdbc.callable;
+
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+import io.github.maxwellnie.free.jdbc.statement.ResultParserException;
+
+/**
+ * OUT values of one execution of a {@link CallablePlan}, read by 1-based parameter index or by parameter name.
+ * <p>
+ * Integer, boolean and floating point OUT parameters are kept as primitives, so {@link #getLong(int)},
+ * {@link #getBoolean(int)} and {@link #getDouble(int)} do not box. The values stay readable after the statement is
+ * closed or executed again.
+ *
+ * @author Maxwell Nie
+ */
+public final class CallableOutValues {
+    private final CallablePlan plan;
+    final long[] longs;
+    final double[] doubles;
+    final Object[] objects;
+    private long[] nulls;
+
+    CallableOutValues(CallablePlan plan) {
+        int count = plan.getParameterCount();
+        this.plan = plan;
+        this.longs = new long[count];
+        this.doubles = new double[count];
+        this.objects = new Object[count];
+    }
+
+    void setNull(int position) {
+        if (nulls == null)
+            nulls = new long[(longs.length + 63) >>> 6];
+        nulls[position >>> 6] |= 1L << position;
+    }
+
+    public CallablePlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return true if the OUT value is SQL NULL
+     */
+    public boolean isNull(int index) {
+        int position = position(index);
+        return nulls != null && (nulls[position >>> 6] & (1L << position)) != 0;
+    }
+
+    public boolean isNull(String name) {
+        return isNull(plan.indexOf(name));
+    }
+
+    /**
+     * @return Value of an integer or boolean OUT parameter, or a numeric object converted, 0 for SQL NULL
+     */
+    public long getLong(int index) {
+        int position = position(index);
+        switch (plan.getOutKind(position)) {
+            case CallablePlan.KIND_LONG:
+            case CallablePlan.KIND_BOOLEAN:
+                return longs[position];
+            case CallablePlan.KIND_DOUBLE:
+                return (long) doubles[position];
+            default:
+                Object value = objects[position];
+                if (value == null)
+                    return 0L;
+                if (value instanceof Number)
+                    return ((Number) value).longValue();
+                throw mismatch(index, "long", value);
+        }
+    }
+
+    public long getLong(String name) {
+        return getLong(plan.indexOf(name));
+    }
+
+    public int getInt(int index) {
+        return (int) getLong(index);
+    }
+
+    public int getInt(String name) {
+        return getInt(plan.indexOf(name));
+    }
+
+    /**
+     * @return Value of a floating point OUT parameter, or a numeric value converted, 0 for SQL NULL
+     */
+    public double getDouble(int index) {
+        int position = position(index);
+        switch (plan.getOutKind(position)) {
+            case CallablePlan.KIND_DOUBLE:
+                return doubles[position];
+            case CallablePlan.KIND_LONG:
+            case CallablePlan.KIND_BOOLEAN:
+                return longs[position];
+            default:
+                Object value = objects[position];
+                if (value == null)
+                    return 0D;
+                if (value instanceof Number)
+                    return ((Number) value).doubleValue();
+                throw mismatch(index, "double", value);
+        }
+    }
+
+    public double getDouble(String name) {
+        return getDouble(plan.indexOf(name));
+    }
+
+    /**
+     * @return Value of a boolean OUT parameter, true for any non-zero number, false for SQL NULL
+     */
+    public boolean getBoolean(int index) {
+        int position = position(index);
+        if (plan.getOutKind(position) == CallablePlan.KIND_OBJECT) {
+            Object value = objects[position];
+            if (value == null)
+                return false;
+            if (value instanceof Boolean)
+                return (Boolean) value;
+            if (value instanceof Number)
+                return ((Number) value).doubleValue() != 0;
+            throw mismatch(index, "boolean", value);
+        }
+        return getDouble(index) != 0;
+    }
+
+    public boolean getBoolean(String name) {
+        return getBoolean(plan.indexOf(name));
+    }
+
+    /**
+     * @return Value of the OUT parameter as a string, null for SQL NULL
+     */
+    public String getString(int index) {
+        int position = position(index);
+        if (isNull(index))
+            return null;
+        switch (plan.getOutKind(position)) {
+            case CallablePlan.KIND_LONG:
+                return Long.toString(longs[position]);
+            case CallablePlan.KIND_BOOLEAN:
+                return Boolean.toString(longs[position] != 0);
+            case CallablePlan.KIND_DOUBLE:
+                return Double.toString(doubles[position]);
+            default:
+                return objects[position].toString();
+        }
+    }
+
+    public String getString(String name) {
+        return getString(plan.indexOf(name));
+    }
+
+    /**
+     * @return Value of the OUT parameter, boxed when it is a primitive, null for SQL NULL
+     */
+    public Object getObject(int index) {
+        int position = position(index);
+        if (isNull(index))
+            return null;
+        switch (plan.getOutKind(position)) {
+            case CallablePlan.KIND_LONG:
+                return longs[position];
+            case CallablePlan.KIND_BOOLEAN:
+                return longs[position] != 0;
+            case CallablePlan.KIND_DOUBLE:
+                return doubles[position];
+            default:
+                return objects[position];
+        }
+    }
+
+    public Object getObject(String name) {
+        return getObject(plan.indexOf(name));
+    }
+
+    private int position(int index) {
+        if (index < 1 || index > longs.length)
+            throw new SqlBuildException("Parameter index " + index + " is out of range [1, " + longs.length + "] for SQL: " + plan.getSql());
+        if (plan.getOutKind(index - 1) == 0)
+            throw new SqlBuildException("Parameter " + index + " is not an OUT parameter for SQL: " + plan.getSql());
+        return index - 1;
+    }
+
+    private ResultParserException mismatch(int index, String expected, Object value) {
+        return new ResultParserException("OUT parameter " + index + " conversion failed for SQL: " + plan.getSql() +
+                ", Expected: " + expected + ", Actual: " + value.getClass().getName());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("CallableOutValues{");
+        boolean first = true;
+        for (int i = 1; i <= longs.length; i++) {
+            if (plan.getOutKind(i - 1) == 0)
+                continue;
+            if (!first)
+                builder.append(", ");
+            builder.append(i).append('=').append(getObject(i));
+            first = false;
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,260 @@
+package io.github.maxwellnie.free.jdbc.callable;
+
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+import io.github.maxwellnie.free.jdbc.statement.ParametersHandler;
+import io.github.maxwellnie.free.jdbc.statement.ResultParser;
+import io.github.maxwellnie.free.jdbc.statement.ResultParserException;
+
+import java.sql.CallableStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled form of a {@link CallableSql}: the mode, SQL type and name of every parameter resolved once into arrays.
+ * <p>
+ * A plan is meant to be kept per call site and executed with the IN values only. The OUT parameters are registered
+ * once per statement, and the OUT values come back as a {@link CallableOutValues} view reading primitives unboxed.
+ * <pre><code>
+ *   static final CallablePlan TRANSFER = CallablePlan.compile(new CallableSqlBuilder("{call transfer(?, ?, ?, ?)}")
+ *           .appendInParameter(null, Types.BIGINT)
+ *           .appendInParameter(null, Types.BIGINT)
+ *           .appendInParameter(null, Types.DECIMAL)
+ *           .appendOutParameter("balance", Types.DECIMAL)
+ *           .build());
+ *
+ *   CallableOutValues out = statement.execute(TRANSFER, new Object[]{from, to, amount, null});
+ *   BigDecimal balance = (BigDecimal) out.getObject("balance");
+ * </code></pre>
+ * The value array holds one value per parameter in order, the values at OUT positions are ignored.
+ *
+ * @author Maxwell Nie
+ */
+public final class CallablePlan {
+    static final byte KIND_LONG = 1;
+    static final byte KIND_BOOLEAN = 2;
+    static final byte KIND_DOUBLE = 3;
+    static final byte KIND_OBJECT = 4;
+    private final String sql;
+    private final CallableSql.ParameterType[] parameterTypes;
+    private final int[] sqlTypes;
+    private final String[] names;
+    private final Object[] defaultValues;
+    private final int[] inIndexes;
+    private final int[] outIndexes;
+    private final byte[] outKinds;
+    private final ParametersHandler<CallableStatement, Object[]> parametersHandler = this::bind;
+    private final ResultParser<CallableStatement, Boolean, CallableOutValues> outValuesParser = (statement, hasResultSet) -> {
+        try {
+            return readOutValues(statement);
+        } catch (SQLException e) {
+            throw new ResultParserException("OUT parameter reading failed for SQL: " + getSql() + ", Error: " + e.getMessage(), e);
+        }
+    };
+
+    private CallablePlan(String sql, List<CallableSql.CallableParameter> parameters) {
+        int count = parameters.size();
+        this.sql = sql;
+        this.parameterTypes = new CallableSql.ParameterType[count];
+        this.sqlTypes = new int[count];
+        this.names = new String[count];
+        this.defaultValues = new Object[count];
+        this.outKinds = new byte[count];
+        int inCount = 0;
+        int outCount = 0;
+        for (int i = 0; i < count; i++) {
+            CallableSql.CallableParameter parameter = parameters.get(i);
+            if (parameter == null || parameter.getParameterType() == null)
+                throw new SqlBuildException("Callable parameter " + (i + 1) + " has no parameter type for SQL: " + sql);
+            parameterTypes[i] = parameter.getParameterType();
+            sqlTypes[i] = parameter.getSqlTypes();
+            names[i] = parameter.getName();
+            if (parameter.getParameterType() != CallableSql.ParameterType.OUT) {
+                defaultValues[i] = parameter.getParameter();
+                inCount++;
+            }
+            if (parameter.getParameterType() != CallableSql.ParameterType.IN) {
+                outKinds[i] = kindOf(sqlTypes[i]);
+                outCount++;
+            }
+        }
+        this.inIndexes = new int[inCount];
+        this.outIndexes = new int[outCount];
+        for (int i = 0, in = 0, out = 0; i < count; i++) {
+            if (parameterTypes[i] != CallableSql.ParameterType.OUT)
+                inIndexes[in++] = i;
+            if (outKinds[i] != 0)
+                outIndexes[out++] = i;
+        }
+    }
+
+    /**
+     * Compiles the plan of the callable SQL. Its IN values become the values of {@link #newValues()}.
+     *
+     * @throws SqlBuildException if the callable SQL is null or has a parameter without a type
+     */
+    public static CallablePlan compile(CallableSql callableSql) throws SqlBuildException {
+        if (callableSql == null || callableSql.getSqlString() == null || callableSql.getSqlString().isEmpty())
+            throw new SqlBuildException("Callable SQL cannot be null or empty");
+        List<CallableSql.CallableParameter> parameters = callableSql.getCallableParameters();
+        return new CallablePlan(callableSql.getSqlString(), parameters == null ? Collections.emptyList() : parameters);
+    }
+
+    private static byte kindOf(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return KIND_LONG;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return KIND_BOOLEAN;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return KIND_DOUBLE;
+            default:
+                return KIND_OBJECT;
+        }
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public int getParameterCount() {
+        return sqlTypes.length;
+    }
+
+    public int getOutParameterCount() {
+        return outIndexes.length;
+    }
+
+    public boolean hasOutParameters() {
+        return outIndexes.length > 0;
+    }
+
+    /**
+     * @return 1-based index of the named parameter
+     * @throws SqlBuildException if no parameter has the name
+     */
+    public int indexOf(String name) throws SqlBuildException {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && names[i].equals(name))
+                return i + 1;
+        }
+        throw new SqlBuildException("No callable parameter named " + name + " for SQL: " + sql);
+    }
+
+    /**
+     * @return New value array holding the IN values of the compiled callable SQL
+     */
+    public Object[] newValues() {
+        return defaultValues.clone();
+    }
+
+    /**
+     * Extracts the values of a callable SQL of the same shape as this plan.
+     *
+     * @throws SqlBuildException if the number, modes or types of its parameters differ from this plan
+     */
+    public Object[] values(CallableSql callableSql) throws SqlBuildException {
+        List<CallableSql.CallableParameter> parameters = callableSql == null ? null : callableSql.getCallableParameters();
+        int actual = parameters == null ? 0 : parameters.size();
+        if (actual != sqlTypes.length)
+            throw new SqlBuildException("expectedParametersSize is " + sqlTypes.length + " but actual is " + actual + " for SQL: " + sql);
+        Object[] values = new Object[actual];
+        for (int i = 0; i < actual; i++) {
+            CallableSql.CallableParameter parameter = parameters.get(i);
+            if (parameter.getSqlTypes() != sqlTypes[i] || parameter.getParameterType() != parameterTypes[i])
+                throw new SqlBuildException("Callable parameter " + (i + 1) + " does not match the plan for SQL: " + sql);
+            values[i] = parameter.getParameter();
+        }
+        return values;
+    }
+
+    /**
+     * Registers every OUT parameter. Registrations are kept by the statement between executions.
+     */
+    public void registerOutParameters(CallableStatement statement) throws SQLException {
+        for (int index : outIndexes)
+            statement.registerOutParameter(index + 1, sqlTypes[index]);
+    }
+
+    /**
+     * Binds the IN values, the values at OUT positions are ignored.
+     *
+     * @throws SqlBuildException if the number of values does not match the number of parameters
+     */
+    public void bind(CallableStatement statement, Object[] values) throws SQLException {
+        validate(values);
+        for (int index : inIndexes) {
+            Object value = values[index];
+            if (value == null)
+                statement.setNull(index + 1, sqlTypes[index]);
+            else
+                statement.setObject(index + 1, value, sqlTypes[index]);
+        }
+    }
+
+    /**
+     * @throws SqlBuildException if the number of values does not match the number of parameters
+     */
+    public void validate(Object[] values) throws SqlBuildException {
+        int actual = values == null ? 0 : values.length;
+        if (actual != sqlTypes.length)
+            throw new SqlBuildException("expectedParametersSize is " + sqlTypes.length + " but actual is " + actual + " for SQL: " + sql);
+    }
+
+    /**
+     * Reads the value of every OUT parameter of the executed statement.
+     */
+    public CallableOutValues readOutValues(CallableStatement statement) throws SQLException {
+        CallableOutValues values = new CallableOutValues(this);
+        for (int index : outIndexes) {
+            int parameterIndex = index + 1;
+            switch (outKinds[index]) {
+                case KIND_LONG:
+                    values.longs[index] = statement.getLong(parameterIndex);
+                    break;
+                case KIND_BOOLEAN:
+                    values.longs[index] = statement.getBoolean(parameterIndex) ? 1L : 0L;
+                    break;
+                case KIND_DOUBLE:
+                    values.doubles[index] = statement.getDouble(parameterIndex);
+                    break;
+                default:
+                    values.objects[index] = statement.getObject(parameterIndex);
+                    break;
+            }
+            if (statement.wasNull())
+                values.setNull(index);
+        }
+        return values;
+    }
+
+    /**
+     * @return Handler binding a value array with {@link #bind(CallableStatement, Object[])}
+     */
+    public ParametersHandler<CallableStatement, Object[]> getParametersHandler() {
+        return parametersHandler;
+    }
+
+    /**
+     * @return Result parser reading the OUT values with {@link #readOutValues(CallableStatement)}
+     */
+    public ResultParser<CallableStatement, Boolean, CallableOutValues> getOutValuesParser() {
+        return outValuesParser;
+    }
+
+    byte getOutKind(int position) {
+        return outKinds[position];
+    }
+
+    @Override
+    public String toString() {
+        return "CallablePlan{sql=" + sql + ", parameters=" + sqlTypes.length + ", outParameters=" + outIndexes.length + "}";
+    }
+}
@@ -17,14 +17,42 @@ public interface CallableSql extends Sql {
 
     class CallableParameter {
         public CallableParameter(Object parameter, int sqlTypes, ParameterType parameterType) {
+            this(parameter, sqlTypes, parameterType, null);
+        }
+
+        /**
+         * @param name Name the value of the parameter can be read by from {@link CallableOutValues}, may be null
+         */
+        public CallableParameter(Object parameter, int sqlTypes, ParameterType parameterType, String name) {
             this.parameter = parameter;
             this.sqlTypes = sqlTypes;
             this.parameterType = parameterType;
+            this.name = name;
         }
 
         Object parameter;
         int sqlTypes;
         ParameterType parameterType;
+        String name;
+
+        public Object getParameter() {
+            return parameter;
+        }
+
+        /**
+         * @return SQL type from {@link java.sql.Types}
+         */
+        public int getSqlTypes() {
+            return sqlTypes;
+        }
+
+        public ParameterType getParameterType() {
+            return parameterType;
+        }
+
+        public String getName() {
+            return name;
+        }
     }
 
     enum ParameterType {
@@ -44,6 +44,22 @@ public class CallableSqlBuilder extends AbstractSqlBuilder<CallableSql, Callable
         return this;
     }
 
+    /**
+     * Appends an OUT parameter whose value can be read by name from {@link CallableOutValues}.
+     */
+    public CallableSqlBuilder appendOutParameter(String name, int sqlTypes) {
+        sqlParameters.add(new CallableSql.CallableParameter(null, sqlTypes, CallableSql.ParameterType.OUT, name));
+        return this;
+    }
+
+    /**
+     * Appends an IN OUT parameter whose value can be read by name from {@link CallableOutValues}.
+     */
+    public CallableSqlBuilder appendInOutParameter(String name, Object parameter, int sqlTypes) {
+        sqlParameters.add(new CallableSql.CallableParameter(parameter, sqlTypes, CallableSql.ParameterType.IN_OUT, name));
+        return this;
+    }
+
     @Override
     public CallableSql build() throws SqlBuildException {
         if (sqlStringBuilder == null || sqlStringBuilder.length() == 0) {
@@ -99,6 +115,16 @@ public class CallableSqlBuilder extends AbstractSqlBuilder<CallableSql, Callable
                 return this;
             }
 
+            public Builder addOutParameter(String name, int sqlTypes) {
+                callableParameters.add(new CallableParameter(null, sqlTypes, ParameterType.OUT, name));
+                return this;
+            }
+
+            public Builder addInOutParameter(String name, Object parameter, int sqlTypes) {
+                callableParameters.add(new CallableParameter(parameter, sqlTypes, ParameterType.IN_OUT, name));
+                return this;
+            }
+
             public CallableSqlImpl build() {
                 return new CallableSqlImpl(this);
             }
@@ -0,0 +1,139 @@
+package io.github.maxwellnie.free.jdbc.mapping;
+
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the properties of a bean class without per-call reflection.
+ * <p>
+ * Readable properties are public getters ({@code getX}, or {@code isX} for booleans) and public fields. Property names
+ * are matched ignoring case and underscores, like {@link BeanMapper} does for columns. Getters are compiled into
+ * lambdas through {@link LambdaMetafactory} when the bean class is publicly accessible, and invoked through
+ * {@link MethodHandle}s otherwise.
+ *
+ * @param <T> Type of the bean
+ * @author Maxwell Nie
+ */
+public class BeanAccessor<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassValue<BeanAccessor<?>> ACCESSORS = new ClassValue<BeanAccessor<?>>() {
+        @Override
+        protected BeanAccessor<?> computeValue(Class<?> type) {
+            return new BeanAccessor<>(type);
+        }
+    };
+    private final Class<T> type;
+    private final Map<String, PropertyGetter> getters;
+
+    private BeanAccessor(Class<T> type) {
+        this.type = type;
+        this.getters = discoverGetters(type);
+    }
+
+    /**
+     * Returns the shared accessor of a bean class.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanAccessor<T> of(Class<T> type) {
+        if (type == null)
+            throw new SqlBuildException("Bean class cannot be null");
+        return (BeanAccessor<T>) ACCESSORS.get(type);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * @param property Property name, matched ignoring case and underscores
+     * @return Getter of the property, null if the bean has no readable property of that name
+     */
+    public PropertyGetter getter(String property) {
+        return getters.get(BeanMapper.normalize(property));
+    }
+
+    /**
+     * @return Normalized names of the readable properties
+     */
+    public Set<String> getPropertyNames() {
+        return Collections.unmodifiableSet(getters.keySet());
+    }
+
+    private static Map<String, PropertyGetter> discoverGetters(Class<?> type) {
+        Map<String, PropertyGetter> getters = new HashMap<>();
+        for (Field field : type.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()))
+                continue;
+            try {
+                getters.put(BeanMapper.normalize(field.getName()), handleGetter(type, LOOKUP.unreflectGetter(field)));
+            } catch (IllegalAccessException ignored) {
+                // not readable from here
+            }
+        }
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0 || method.isBridge() ||
+                    method.getReturnType() == void.class || method.getDeclaringClass() == Object.class)
+                continue;
+            String name = method.getName();
+            String property;
+            if (name.length() > 3 && name.startsWith("get"))
+                property = name.substring(3);
+            else if (name.length() > 2 && name.startsWith("is") && method.getReturnType() == boolean.class)
+                property = name.substring(2);
+            else
+                continue;
+            try {
+                boolean linkable = BeanMapper.isPubliclyLinkable(type) && BeanMapper.isPubliclyLinkable(method.getDeclaringClass());
+                getters.put(BeanMapper.normalize(property), compile(type, method, LOOKUP.unreflect(BeanMapper.accessible(method)), linkable));
+            } catch (IllegalAccessException ignored) {
+                // not readable from here
+            }
+        }
+        return getters;
+    }
+
+    private static PropertyGetter compile(Class<?> type, Method method, MethodHandle getter, boolean linkable) {
+        if (linkable) {
+            try {
+                return (PropertyGetter) LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(PropertyGetter.class),
+                        MethodType.methodType(Object.class, Object.class), getter,
+                        MethodType.methodType(BeanMapper.box(method.getReturnType()), type)).getTarget().invoke();
+            } catch (Throwable ignored) {
+                // fall back to the method handle
+            }
+        }
+        return handleGetter(type, getter);
+    }
+
+    private static PropertyGetter handleGetter(Class<?> type, MethodHandle getter) {
+        MethodHandle generic = getter.asType(MethodType.methodType(Object.class, Object.class));
+        return bean -> {
+            try {
+                return generic.invokeExact(bean);
+            } catch (Throwable t) {
+                if (t instanceof RuntimeException)
+                    throw (RuntimeException) t;
+                throw new SqlBuildException("Property read failed for " + type.getName() + ", Error: " + t.getMessage(), t);
+            }
+        };
+    }
+
+    /**
+     * Compiled getter of one bean property.
+     */
+    @FunctionalInterface
+    public interface PropertyGetter {
+        Object get(Object bean);
+    }
+}
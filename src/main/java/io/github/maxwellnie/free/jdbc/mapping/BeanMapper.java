@@ -0,0 +1,518 @@
+package io.github.maxwellnie.free.jdbc.mapping;
+
+import io.github.maxwellnie.free.jdbc.statement.ResultParser;
+import io.github.maxwellnie.free.jdbc.statement.ResultParserException;
+import io.github.maxwellnie.free.jdbc.statement.RowMapper;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps result set rows to instances of a bean class without per-row reflection.
+ * <p>
+ * Writable properties are public setters and public non-final fields. Column labels are matched to property names
+ * ignoring case and underscores, so {@code user_name} and {@code USERNAME} both map to {@code userName}.
+ * Constructors and setters are compiled into lambdas through {@link LambdaMetafactory} when the bean class is
+ * publicly accessible, and invoked through {@link MethodHandle}s otherwise.
+ * <p>
+ * Each setter is compiled once per property. The mapping plan (column index to property) is resolved from
+ * {@link ResultSetMetaData} on first use and cached per SQL string, for at most {@value #MAX_CACHED_PLANS} SQL strings
+ * per bean class, so after warm-up a row costs one constructor call plus one getter and one setter per column.
+ * <pre><code>
+ *   List&lt;User&gt; users = stmt.executeQuery(singleSql, BeanMapper.of(User.class).resultParser(singleSql.getSqlString()));
+ * </code></pre>
+ *
+ * @param <T> Type of the bean
+ * @author Maxwell Nie
+ */
+public class BeanMapper<T> {
+    static final int MAX_CACHED_PLANS = 256;
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassValue<BeanMapper<?>> MAPPERS = new ClassValue<BeanMapper<?>>() {
+        @Override
+        protected BeanMapper<?> computeValue(Class<?> type) {
+            return new BeanMapper<>(type);
+        }
+    };
+    private final Class<T> type;
+    private final Instantiator instantiator;
+    private final Map<String, Property> properties;
+    private final Map<String, Plan> plans = new ConcurrentHashMap<>();
+
+    private BeanMapper(Class<T> type) {
+        this.type = type;
+        this.instantiator = compileInstantiator(type);
+        this.properties = discoverProperties(type);
+    }
+
+    /**
+     * Returns the shared mapper of a bean class.
+     *
+     * @param type Bean class with an accessible no-argument constructor
+     * @param <T>  Type of the bean
+     * @return Bean mapper
+     * @throws ResultParserException if the class cannot be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanMapper<T> of(Class<T> type) {
+        if (type == null)
+            throw new ResultParserException("Bean type cannot be null");
+        return (BeanMapper<T>) MAPPERS.get(type);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Creates a row mapper whose plan is cached under the SQL string and shared by every mapper of the same SQL.
+     *
+     * @param sql SQL string the result sets come from
+     * @return Row mapper
+     */
+    public RowMapper<T> rowMapper(String sql) {
+        if (sql == null)
+            throw new ResultParserException("SQL cannot be null");
+        return new PlanRowMapper(sql);
+    }
+
+    /**
+     * Creates a row mapper that resolves its plan from the first result set it maps and keeps it for later rows.
+     *
+     * @return Row mapper
+     */
+    public RowMapper<T> rowMapper() {
+        return new PlanRowMapper(null);
+    }
+
+    /**
+     * Creates a result parser mapping every row of the current result set into a list of beans.
+     *
+     * @param sql SQL string the result sets come from
+     * @return Result parser
+     */
+    public ResultParser<PreparedStatement, Boolean, List<T>> resultParser(String sql) {
+        return RowMapper.listParser(rowMapper(sql));
+    }
+
+    private Plan plan(String sql, ResultSet resultSet) throws SQLException {
+        Plan plan = sql == null ? null : plans.get(sql);
+        if (plan == null) {
+            plan = compilePlan(resultSet.getMetaData());
+            if (sql != null && plans.size() < MAX_CACHED_PLANS) {
+                Plan existing = plans.putIfAbsent(sql, plan);
+                if (existing != null)
+                    plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    private Plan compilePlan(ResultSetMetaData metaData) throws SQLException {
+        List<ColumnAssigner> assigners = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            Property property = properties.get(normalize(metaData.getColumnLabel(i)));
+            if (property != null)
+                assigners.add(property.assigner(i));
+        }
+        return new Plan(assigners.toArray(new ColumnAssigner[0]));
+    }
+
+    private final class PlanRowMapper implements RowMapper<T> {
+        private final String sql;
+        private Plan plan;
+
+        PlanRowMapper(String sql) {
+            this.sql = sql;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+            Plan current = plan;
+            if (current == null)
+                plan = current = plan(sql, resultSet);
+            T bean = (T) instantiator.newInstance();
+            for (ColumnAssigner assigner : current.assigners)
+                assigner.assign(resultSet, bean);
+            return bean;
+        }
+    }
+
+    private static final class Plan {
+        final ColumnAssigner[] assigners;
+
+        Plan(ColumnAssigner[] assigners) {
+            this.assigners = assigners;
+        }
+    }
+
+    static String normalize(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_')
+                builder.append(c);
+        }
+        return builder.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static Instantiator compileInstantiator(Class<?> type) {
+        MethodHandle constructor;
+        boolean linkable;
+        try {
+            Constructor<?> declared = type.getDeclaredConstructor();
+            linkable = Modifier.isPublic(declared.getModifiers()) && !Modifier.isAbstract(type.getModifiers()) && isPubliclyLinkable(type);
+            constructor = LOOKUP.unreflectConstructor(accessible(declared));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new ResultParserException("Bean class " + type.getName() + " has no accessible no-argument constructor", e);
+        }
+        if (linkable) {
+            try {
+                return (Instantiator) LambdaMetafactory.metafactory(LOOKUP, "newInstance", MethodType.methodType(Instantiator.class),
+                        MethodType.methodType(Object.class), constructor, MethodType.methodType(type)).getTarget().invoke();
+            } catch (Throwable ignored) {
+                // fall back to the method handle
+            }
+        }
+        MethodHandle generic = constructor.asType(MethodType.methodType(Object.class));
+        return () -> {
+            try {
+                return generic.invokeExact();
+            } catch (Throwable t) {
+                throw new ResultParserException("Bean instantiation failed for " + type.getName() + ", Error: " + t.getMessage(), t);
+            }
+        };
+    }
+
+    private static Map<String, Property> discoverProperties(Class<?> type) {
+        Map<String, Property> properties = new HashMap<>();
+        for (Field field : type.getFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers))
+                continue;
+            try {
+                properties.put(normalize(field.getName()), new Property(type, field.getType(), LOOKUP.unreflectSetter(field), false));
+            } catch (IllegalAccessException ignored) {
+                // not writable from here
+            }
+        }
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1 || method.isBridge())
+                continue;
+            String name = method.getName();
+            if (name.length() <= 3 || !name.startsWith("set"))
+                continue;
+            try {
+                boolean linkable = isPubliclyLinkable(type) && isPubliclyLinkable(method.getDeclaringClass());
+                properties.put(normalize(name.substring(3)), new Property(type, method.getParameterTypes()[0], LOOKUP.unreflect(accessible(method)), linkable));
+            } catch (IllegalAccessException ignored) {
+                // not writable from here
+            }
+        }
+        return properties;
+    }
+
+    static <A extends AccessibleObject> A accessible(A member) {
+        try {
+            member.setAccessible(true);
+        } catch (RuntimeException ignored) {
+            // keep default access checks
+        }
+        return member;
+    }
+
+    /**
+     * Lambdas spun by {@link LambdaMetafactory} link against the bean class from this library's class loader,
+     * so only public classes visible from that loader are compiled; others use method handles.
+     */
+    static boolean isPubliclyLinkable(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getDeclaringClass()) {
+            if (!Modifier.isPublic(current.getModifiers()))
+                return false;
+        }
+        try {
+            return Class.forName(type.getName(), false, BeanMapper.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static final class Property {
+        final Class<?> beanType;
+        final Class<?> valueType;
+        final MethodHandle setter;
+        final boolean linkable;
+        private volatile Object compiledSetter;
+
+        Property(Class<?> beanType, Class<?> valueType, MethodHandle setter, boolean linkable) {
+            this.beanType = beanType;
+            this.valueType = valueType;
+            this.setter = setter;
+            this.linkable = linkable;
+        }
+
+        ColumnAssigner assigner(int column) {
+            Object setter = setter();
+            if (valueType == int.class) {
+                IntSetter set = (IntSetter) setter;
+                return (resultSet, bean) -> set.set(bean, resultSet.getInt(column));
+            } else if (valueType == long.class) {
+                LongSetter set = (LongSetter) setter;
+                return (resultSet, bean) -> set.set(bean, resultSet.getLong(column));
+            } else if (valueType == double.class) {
+                DoubleSetter set = (DoubleSetter) setter;
+                return (resultSet, bean) -> set.set(bean, resultSet.getDouble(column));
+            } else if (valueType == boolean.class) {
+                BooleanSetter set = (BooleanSetter) setter;
+                return (resultSet, bean) -> set.set(bean, resultSet.getBoolean(column));
+            }
+            ObjectSetter set = (ObjectSetter) setter;
+            ColumnReader reader = reader(valueType, column);
+            return (resultSet, bean) -> set.set(bean, reader.read(resultSet));
+        }
+
+        /**
+         * Returns the setter compiled on first use, so plans only build the per-column lambdas around it.
+         */
+        private Object setter() {
+            Object setter = compiledSetter;
+            if (setter == null) {
+                if (valueType == int.class)
+                    setter = compile(IntSetter.class, int.class);
+                else if (valueType == long.class)
+                    setter = compile(LongSetter.class, long.class);
+                else if (valueType == double.class)
+                    setter = compile(DoubleSetter.class, double.class);
+                else if (valueType == boolean.class)
+                    setter = compile(BooleanSetter.class, boolean.class);
+                else
+                    setter = compile(ObjectSetter.class, Object.class);
+                compiledSetter = setter;
+            }
+            return setter;
+        }
+
+        /**
+         * Compiles the setter into the given functional interface, whose single method is
+         * {@code void set(Object bean, V value)} with V being valueParameter.
+         */
+        private <S> S compile(Class<S> setterType, Class<?> valueParameter) {
+            MethodType samType = MethodType.methodType(void.class, Object.class, valueParameter);
+            if (linkable && setter.type().parameterCount() == 2) {
+                try {
+                    MethodType instantiated = MethodType.methodType(void.class, beanType, valueParameter == Object.class ? box(valueType) : valueParameter);
+                    return setterType.cast(LambdaMetafactory.metafactory(LOOKUP, "set", MethodType.methodType(setterType),
+                            samType, setter, instantiated).getTarget().invoke());
+                } catch (Throwable ignored) {
+                    // fall back to the method handle
+                }
+            }
+            MethodHandle generic = setter.asType(samType);
+            if (valueParameter == int.class)
+                return setterType.cast((IntSetter) (bean, value) -> {
+                    try {
+                        generic.invokeExact(bean, value);
+                    } catch (Throwable t) {
+                        throw assignmentFailure(t);
+                    }
+                });
+            if (valueParameter == long.class)
+                return setterType.cast((LongSetter) (bean, value) -> {
+                    try {
+                        generic.invokeExact(bean, value);
+                    } catch (Throwable t) {
+                        throw assignmentFailure(t);
+                    }
+                });
+            if (valueParameter == double.class)
+                return setterType.cast((DoubleSetter) (bean, value) -> {
+                    try {
+                        generic.invokeExact(bean, value);
+                    } catch (Throwable t) {
+                        throw assignmentFailure(t);
+                    }
+                });
+            if (valueParameter == boolean.class)
+                return setterType.cast((BooleanSetter) (bean, value) -> {
+                    try {
+                        generic.invokeExact(bean, value);
+                    } catch (Throwable t) {
+                        throw assignmentFailure(t);
+                    }
+                });
+            return setterType.cast((ObjectSetter) (bean, value) -> {
+                try {
+                    generic.invokeExact(bean, value);
+                } catch (Throwable t) {
+                    throw assignmentFailure(t);
+                }
+            });
+        }
+
+        private RuntimeException assignmentFailure(Throwable t) {
+            if (t instanceof RuntimeException)
+                return (RuntimeException) t;
+            return new ResultParserException("Property assignment failed for " + beanType.getName() + ", Error: " + t.getMessage(), t);
+        }
+    }
+
+    static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive())
+            return type;
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ColumnReader reader(Class<?> type, int column) {
+        if (type == String.class)
+            return resultSet -> resultSet.getString(column);
+        if (type == Long.class)
+            return resultSet -> {
+                long value = resultSet.getLong(column);
+                return resultSet.wasNull() ? null : value;
+            };
+        if (type == Integer.class)
+            return resultSet -> {
+                int value = resultSet.getInt(column);
+                return resultSet.wasNull() ? null : value;
+            };
+        if (type == Double.class)
+            return resultSet -> {
+                double value = resultSet.getDouble(column);
+                return resultSet.wasNull() ? null : value;
+            };
+        if (type == Boolean.class)
+            return resultSet -> {
+                boolean value = resultSet.getBoolean(column);
+                return resultSet.wasNull() ? null : value;
+            };
+        if (type == float.class || type == Float.class)
+            return resultSet -> {
+                float value = resultSet.getFloat(column);
+                return resultSet.wasNull() && type == Float.class ? null : value;
+            };
+        if (type == short.class || type == Short.class)
+            return resultSet -> {
+                short value = resultSet.getShort(column);
+                return resultSet.wasNull() && type == Short.class ? null : value;
+            };
+        if (type == byte.class || type == Byte.class)
+            return resultSet -> {
+                byte value = resultSet.getByte(column);
+                return resultSet.wasNull() && type == Byte.class ? null : value;
+            };
+        if (type == BigDecimal.class)
+            return resultSet -> resultSet.getBigDecimal(column);
+        if (type == byte[].class)
+            return resultSet -> resultSet.getBytes(column);
+        if (type == Timestamp.class || type == java.util.Date.class)
+            return resultSet -> resultSet.getTimestamp(column);
+        if (type == Date.class)
+            return resultSet -> resultSet.getDate(column);
+        if (type == Time.class)
+            return resultSet -> resultSet.getTime(column);
+        if (type == LocalDate.class)
+            return resultSet -> {
+                Date value = resultSet.getDate(column);
+                return value == null ? null : value.toLocalDate();
+            };
+        if (type == LocalTime.class)
+            return resultSet -> {
+                Time value = resultSet.getTime(column);
+                return value == null ? null : value.toLocalTime();
+            };
+        if (type == LocalDateTime.class)
+            return resultSet -> {
+                Timestamp value = resultSet.getTimestamp(column);
+                return value == null ? null : value.toLocalDateTime();
+            };
+        if (type == Instant.class)
+            return resultSet -> {
+                Timestamp value = resultSet.getTimestamp(column);
+                return value == null ? null : value.toInstant();
+            };
+        if (type.isEnum())
+            return resultSet -> {
+                String value = resultSet.getString(column);
+                return value == null ? null : Enum.valueOf((Class<Enum>) type, value);
+            };
+        if (type == char.class || type == Character.class)
+            return resultSet -> {
+                String value = resultSet.getString(column);
+                return value == null || value.isEmpty() ? (type == char.class ? '\0' : null) : value.charAt(0);
+            };
+        return resultSet -> {
+            try {
+                return resultSet.getObject(column, type);
+            } catch (SQLException | AbstractMethodError e) {
+                return resultSet.getObject(column);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface Instantiator {
+        Object newInstance();
+    }
+
+    @FunctionalInterface
+    interface ColumnAssigner {
+        void assign(ResultSet resultSet, Object bean) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface ColumnReader {
+        Object read(ResultSet resultSet) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface ObjectSetter {
+        void set(Object bean, Object value);
+    }
+
+    @FunctionalInterface
+    interface IntSetter {
+        void set(Object bean, int value);
+    }
+
+    @FunctionalInterface
+    interface LongSetter {
+        void set(Object bean, long value);
+    }
+
+    @FunctionalInterface
+    interface DoubleSetter {
+        void set(Object bean, double value);
+    }
+
+    @FunctionalInterface
+    interface BooleanSetter {
+        void set(Object bean, boolean value);
+    }
+}
@@ -0,0 +1,176 @@
+package io.github.maxwellnie.free.jdbc.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds with logarithmic buckets.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKETS} linear sub-buckets, so a recorded value is off by at
+ * most 1/{@value #SUB_BUCKETS} of itself. Values above {@link #MAX_VALUE} (about 18 minutes) are clamped.
+ * Recording is a single atomic increment on one of several stripes chosen by the recording thread,
+ * which keeps concurrent writers off each other's cache lines. A stripe of counters is only
+ * allocated when a thread first records into it, so a histogram only written by one thread holds one stripe.
+ *
+ * @author Maxwell Nie
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 40;
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+    private final int stripeMask;
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * @param stripes Maximum number of stripes, rounded up to a power of two
+     */
+    public LatencyHistogram(int stripes) {
+        int count = 1;
+        while (count < stripes)
+            count <<= 1;
+        this.stripes = new AtomicReferenceArray<>(count);
+        this.stripeMask = count - 1;
+    }
+
+    private AtomicLongArray stripe(int index) {
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe != null)
+            return stripe;
+        AtomicLongArray created = new AtomicLongArray(BUCKETS);
+        return stripes.compareAndSet(index, null, created) ? created : stripes.get(index);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) Math.max(value, 0);
+        if (value > MAX_VALUE)
+            value = MAX_VALUE;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long upperBoundOf(int bucket) {
+        return bucket + 1 == BUCKETS ? MAX_VALUE : lowerBoundOf(bucket + 1) - 1;
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos Latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        stripe((int) Thread.currentThread().getId() & stripeMask).incrementAndGet(bucketOf(nanos));
+        if (nanos > max.get())
+            max.accumulate(nanos);
+    }
+
+    /**
+     * Takes a snapshot of the histogram. Values recorded concurrently may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int s = 0; s < stripes.length(); s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null)
+                continue;
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = stripe.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        return new Snapshot(counts, total, max.get());
+    }
+
+    /**
+     * Clears the histogram. Values recorded concurrently may survive the reset.
+     */
+    public void reset() {
+        for (int s = 0; s < stripes.length(); s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null)
+                continue;
+            for (int i = 0; i < BUCKETS; i++)
+                stripe.set(i, 0);
+        }
+        max.reset();
+    }
+
+    /**
+     * Immutable copy of the bucket counts of a histogram.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        /**
+         * @return Number of recorded values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return Largest recorded value in nanoseconds, exact
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the value below which the given fraction of the recorded values fall.
+         * The result is the upper bound of the bucket holding that value, capped at {@link #getMax()}.
+         *
+         * @param quantile Fraction between 0 and 1, for example 0.99 for p99
+         * @return Latency in nanoseconds, 0 if nothing was recorded
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (count == 0)
+                return 0;
+            long rank = (long) Math.ceil(Math.min(Math.max(quantile, 0d), 1d) * count);
+            if (rank == 0)
+                rank = 1;
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Math.min(upperBoundOf(i), max);
+            }
+            return max;
+        }
+
+        /**
+         * @return Approximate mean in nanoseconds, using the midpoint of each bucket
+         */
+        public double getMean() {
+            if (count == 0)
+                return 0;
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0)
+                    sum += counts[i] * ((lowerBoundOf(i) + upperBoundOf(i)) / 2d);
+            }
+            return sum / count;
+        }
+    }
+}
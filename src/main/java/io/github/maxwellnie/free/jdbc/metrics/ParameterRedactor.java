@@ -0,0 +1,41 @@
+package io.github.maxwellnie.free.jdbc.metrics;
+
+/**
+ * Replaces sensitive parameter values before they are captured by a {@link SlowStatementLog}.
+ *
+ * @author Maxwell Nie
+ */
+@FunctionalInterface
+public interface ParameterRedactor {
+    /**
+     * Keeps every value as is.
+     */
+    ParameterRedactor NONE = (sql, index, value) -> value;
+    /**
+     * Replaces every non-null value with {@value #MASK}.
+     */
+    ParameterRedactor ALL = (sql, index, value) -> value == null ? null : ParameterRedactor.MASK;
+    String MASK = "***";
+
+    /**
+     * @param sql   SQL the parameter is bound to
+     * @param index Parameter index, starting at 1
+     * @param value Bound value, may be null
+     * @return Value to capture in place of the bound one
+     */
+    Object redact(String sql, int index, Object value);
+
+    /**
+     * Creates a redactor masking the parameters at the given indexes, starting at 1.
+     */
+    static ParameterRedactor indexes(int... indexes) {
+        int[] masked = indexes.clone();
+        return (sql, index, value) -> {
+            for (int maskedIndex : masked) {
+                if (maskedIndex == index)
+                    return value == null ? null : MASK;
+            }
+            return value;
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.maxwellnie.free.jdbc.metrics;
+
+import io.github.maxwellnie.free.jdbc.statement.StatementTrace;
+
+import java.util.Locale;
+
+/**
+ * Immutable capture of one statement execution recorded by a {@link SlowStatementLog}.
+ * Parameters are captured as text after redaction, so no reference to the bound objects is kept.
+ *
+ * @author Maxwell Nie
+ */
+public final class SlowStatement {
+    private static final StatementTrace.Phase[] PHASES = StatementTrace.Phase.values();
+    final long sequence;
+    private final long timestamp;
+    private final String threadName;
+    private final String sql;
+    private final String parameters;
+    private final long[] phaseNanos;
+    private final long rowCount;
+    private final int batchSize;
+    private final String failure;
+    private final boolean sampled;
+
+    SlowStatement(long sequence, StatementTrace trace, String parameters, boolean sampled) {
+        this.sequence = sequence;
+        this.timestamp = System.currentTimeMillis();
+        this.threadName = Thread.currentThread().getName();
+        this.sql = trace.getSql();
+        this.parameters = parameters;
+        this.phaseNanos = new long[PHASES.length];
+        for (StatementTrace.Phase phase : PHASES)
+            phaseNanos[phase.ordinal()] = trace.getNanos(phase);
+        this.rowCount = trace.getRowCount();
+        this.batchSize = trace.getBatchSize();
+        this.failure = trace.getFailure() == null ? null : trace.getFailure().toString();
+        this.sampled = sampled;
+    }
+
+    /**
+     * @return Capture time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return Redacted parameters as text, null if no parameters were bound
+     */
+    public String getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return SQL and redacted parameters, in the format of {@link io.github.maxwellnie.free.jdbc.Sql#getSqlInfo()}
+     */
+    public String getSqlInfo() {
+        if (parameters == null)
+            return "sql:" + sql;
+        return "sql:" + sql + System.lineSeparator() + "with parameters: " + parameters;
+    }
+
+    public long getNanos(StatementTrace.Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : phaseNanos)
+            total += nanos;
+        return total;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return Description of the exception the execution failed with, null if it succeeded
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return true if the execution was below the threshold and captured by sampling
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(sampled ? "Sampled statement" : "Slow statement")
+                .append(" took ").append(getTotalNanos() / 1000).append("us on ").append(threadName).append(" (");
+        for (StatementTrace.Phase phase : PHASES)
+            builder.append(phase.name().toLowerCase(Locale.ROOT)).append('=').append(phaseNanos[phase.ordinal()] / 1000).append("us, ");
+        builder.append("rows=").append(rowCount);
+        if (batchSize > 0)
+            builder.append(", batchSize=").append(batchSize);
+        builder.append(')');
+        if (failure != null)
+            builder.append(", failed with ").append(failure);
+        return builder.append(System.lineSeparator()).append(getSqlInfo()).toString();
+    }
+}
@@ -0,0 +1,257 @@
+package io.github.maxwellnie.free.jdbc.metrics;
+
+import io.github.maxwellnie.free.jdbc.Sql;
+import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.single.SingleSql;
+import io.github.maxwellnie.free.jdbc.statement.StatementException;
+import io.github.maxwellnie.free.jdbc.statement.StatementListener;
+import io.github.maxwellnie.free.jdbc.statement.StatementTrace;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Statement listener capturing executions slower than a threshold into a bounded ring buffer.
+ * <p>
+ * Executions below the threshold return right after comparing their duration, without allocating, unless they are
+ * picked by the sampling rate. Captured executions hold the SQL, the redacted parameters as text and the phase
+ * timings. When the buffer is full the oldest undrained captures are overwritten and counted as dropped.
+ * <pre><code>
+ *   SlowStatementLog slowLog = new SlowStatementLog(1024)
+ *           .setThreshold(200, TimeUnit.MILLISECONDS)
+ *           .setSampleRate(0.001)
+ *           .setRedactor(ParameterRedactor.indexes(2))
+ *           .startDraining(SlowStatementLog.logTo(Logger.getLogger("slow-sql")), 1, TimeUnit.SECONDS);
+ *   statement.setStatementListener(slowLog);
+ * </code></pre>
+ *
+ * @author Maxwell Nie
+ */
+public class SlowStatementLog implements StatementListener, AutoCloseable {
+    public static final int DEFAULT_MAX_BATCH_ROWS = 10;
+    private final AtomicReferenceArray<SlowStatement> buffer;
+    private final int mask;
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long readSequence;
+    private volatile long thresholdNanos = TimeUnit.SECONDS.toNanos(1);
+    private volatile double sampleRate;
+    private volatile ParameterRedactor redactor = ParameterRedactor.NONE;
+    private volatile int maxBatchRows = DEFAULT_MAX_BATCH_ROWS;
+    private ScheduledExecutorService drainer;
+    private Consumer<? super SlowStatement> drainSink;
+
+    /**
+     * @param capacity Number of captures kept until drained, rounded up to a power of two
+     * @throws StatementException if capacity is not greater than 0
+     */
+    public SlowStatementLog(int capacity) {
+        if (capacity <= 0)
+            throw new StatementException("Slow statement log capacity must be greater than 0, Actual: " + capacity);
+        int size = 1;
+        while (size < capacity)
+            size <<= 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Creates a sink logging every capture to the logger at {@link Level#WARNING}, or {@link Level#INFO} for sampled ones.
+     */
+    public static Consumer<SlowStatement> logTo(Logger logger) {
+        return slowStatement -> logger.log(slowStatement.isSampled() ? Level.INFO : Level.WARNING, slowStatement.toString());
+    }
+
+    /**
+     * Sets the duration from which executions are captured, 1 second by default.
+     */
+    public SlowStatementLog setThreshold(long duration, TimeUnit unit) {
+        if (duration < 0)
+            throw new StatementException("Slow statement threshold cannot be negative, Actual: " + duration);
+        this.thresholdNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Sets the fraction of executions below the threshold that are captured anyway, 0 by default.
+     */
+    public SlowStatementLog setSampleRate(double sampleRate) {
+        if (!(sampleRate >= 0 && sampleRate <= 1))
+            throw new StatementException("Sample rate must be between 0 and 1, Actual: " + sampleRate);
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    public SlowStatementLog setRedactor(ParameterRedactor redactor) {
+        this.redactor = redactor == null ? ParameterRedactor.NONE : redactor;
+        return this;
+    }
+
+    /**
+     * Sets the number of rows captured from a batch, {@value #DEFAULT_MAX_BATCH_ROWS} by default.
+     */
+    public SlowStatementLog setMaxBatchRows(int maxBatchRows) {
+        if (maxBatchRows < 0)
+            throw new StatementException("Max batch rows cannot be negative, Actual: " + maxBatchRows);
+        this.maxBatchRows = maxBatchRows;
+        return this;
+    }
+
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getCapacity() {
+        return buffer.length();
+    }
+
+    /**
+     * @return Number of captures overwritten before being drained
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void onExecution(StatementTrace trace) {
+        boolean sampled = false;
+        if (trace.getTotalNanos() < thresholdNanos) {
+            double rate = sampleRate;
+            if (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate)
+                return;
+            sampled = true;
+        }
+        long sequence = writeSequence.getAndIncrement();
+        buffer.set((int) sequence & mask, new SlowStatement(sequence, trace, captureParameters(trace), sampled));
+    }
+
+    private String captureParameters(StatementTrace trace) {
+        Object parameters = trace.getParameters();
+        String sql = trace.getSql();
+        if (parameters instanceof SingleSql)
+            return format(sql, ((SingleSql) parameters).getSqlParameters());
+        if (parameters instanceof BatchSql) {
+            List<List<Object>> rows;
+            try {
+                rows = ((BatchSql) parameters).getParamsLists();
+            } catch (UnsupportedOperationException e) {
+                return "<streamed rows>";
+            }
+            int captured = Math.min(rows.size(), maxBatchRows);
+            StringBuilder builder = new StringBuilder("[");
+            for (int i = 0; i < captured; i++)
+                builder.append(i == 0 ? "" : ", ").append(format(sql, rows.get(i)));
+            if (captured < rows.size())
+                builder.append(captured == 0 ? "" : ", ").append("... ").append(rows.size() - captured).append(" more rows");
+            return builder.append(']').toString();
+        }
+        if (parameters instanceof List)
+            return format(sql, (List<?>) parameters);
+        if (parameters instanceof Object[])
+            return format(sql, Arrays.asList((Object[]) parameters));
+        if (parameters instanceof Sql)
+            return null;
+        return parameters == null ? null : String.valueOf(redactor.redact(sql, 1, parameters));
+    }
+
+    private String format(String sql, List<?> values) {
+        if (values == null)
+            return null;
+        ParameterRedactor currentRedactor = redactor;
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            Object value = currentRedactor.redact(sql, i + 1, values.get(i));
+            builder.append(i == 0 ? "" : ", ").append(value instanceof byte[] ? "byte[" + ((byte[]) value).length + "]" : String.valueOf(value));
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Passes every capture not yet drained to the sink, oldest first.
+     *
+     * @param sink Consumer of the captures
+     * @return Number of captures drained
+     */
+    public synchronized int drainTo(Consumer<? super SlowStatement> sink) {
+        long end = writeSequence.get();
+        long start = Math.max(readSequence, end - buffer.length());
+        if (start > readSequence)
+            dropped.addAndGet(start - readSequence);
+        int drained = 0;
+        long sequence = start;
+        for (; sequence < end; sequence++) {
+            SlowStatement slowStatement = buffer.get((int) sequence & mask);
+            if (slowStatement == null || slowStatement.sequence < sequence)
+                break; // claimed but not yet written, picked up by the next drain
+            if (slowStatement.sequence > sequence) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            sink.accept(slowStatement);
+            drained++;
+        }
+        readSequence = sequence;
+        return drained;
+    }
+
+    /**
+     * Drains the buffer to the sink periodically on a daemon thread until {@link #close()} is called.
+     *
+     * @throws StatementException if draining has already been started
+     */
+    public synchronized SlowStatementLog startDraining(Consumer<? super SlowStatement> sink, long period, TimeUnit unit) {
+        if (drainer != null)
+            throw new StatementException("Slow statement log is already draining");
+        drainSink = sink;
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "free-jdbc-slow-statement-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(() -> {
+            try {
+                drainTo(sink);
+            } catch (RuntimeException e) {
+                Logger.getLogger(SlowStatementLog.class.getName()).log(Level.WARNING, "Draining slow statements failed", e);
+            }
+        }, period, period, unit);
+        return this;
+    }
+
+    /**
+     * Stops the periodic draining, if started, after a final drain.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService current;
+        Consumer<? super SlowStatement> sink;
+        synchronized (this) {
+            current = drainer;
+            sink = drainSink;
+            drainer = null;
+            drainSink = null;
+        }
+        if (current == null)
+            return;
+        current.shutdown();
+        try {
+            current.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainTo(sink);
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.maxwellnie.free.jdbc.metrics;
+
+import io.github.maxwellnie.free.jdbc.statement.StatementTrace;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histogram of one SQL string, updated by {@link StatementMetrics}.
+ *
+ * @author Maxwell Nie
+ */
+public class SqlMetrics {
+    private static final StatementTrace.Phase[] PHASES = StatementTrace.Phase.values();
+    private final String sql;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder batchEntries = new LongAdder();
+    private final LongAdder[] phaseNanos = new LongAdder[PHASES.length];
+    private final LatencyHistogram latency;
+
+    SqlMetrics(String sql, int stripes) {
+        this.sql = sql;
+        this.latency = new LatencyHistogram(stripes);
+        for (int i = 0; i < phaseNanos.length; i++)
+            phaseNanos[i] = new LongAdder();
+    }
+
+    void record(StatementTrace trace) {
+        long total = 0;
+        for (StatementTrace.Phase phase : PHASES) {
+            long nanos = trace.getNanos(phase);
+            if (nanos != 0) {
+                phaseNanos[phase.ordinal()].add(nanos);
+                total += nanos;
+            }
+        }
+        latency.record(total);
+        executions.increment();
+        if (trace.isFailed())
+            failures.increment();
+        if (trace.getRowCount() > 0)
+            rows.add(trace.getRowCount());
+        if (trace.getBatchSize() > 0)
+            batchEntries.add(trace.getBatchSize());
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return Rows updated or returned, counting only executions with a known row count
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * @return Batch entries executed
+     */
+    public long getBatchEntries() {
+        return batchEntries.sum();
+    }
+
+    /**
+     * @return Nanoseconds spent in the phase over all executions
+     */
+    public long getTotalNanos(StatementTrace.Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * @return Snapshot of the histogram of total execution latencies
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    void reset() {
+        executions.reset();
+        failures.reset();
+        rows.reset();
+        batchEntries.reset();
+        for (LongAdder adder : phaseNanos)
+            adder.reset();
+        latency.reset();
+    }
+
+    /**
+     * Formats the counters and the p50, p99 and p99.9 latencies in microseconds on one line.
+     */
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        StringBuilder builder = new StringBuilder("SqlMetrics{sql=").append(sql)
+                .append(", executions=").append(getExecutions())
+                .append(", failures=").append(getFailures())
+                .append(", rows=").append(getRows())
+                .append(", batchEntries=").append(getBatchEntries());
+        appendMicros(builder, ", p50=", snapshot.getValueAtQuantile(0.5));
+        appendMicros(builder, ", p99=", snapshot.getValueAtQuantile(0.99));
+        appendMicros(builder, ", p999=", snapshot.getValueAtQuantile(0.999));
+        appendMicros(builder, ", max=", snapshot.getMax());
+        for (StatementTrace.Phase phase : PHASES)
+            appendMicros(builder.append(", ").append(phase.name().toLowerCase(Locale.ROOT)), "Total=", getTotalNanos(phase));
+        return builder.append('}').toString();
+    }
+
+    private static void appendMicros(StringBuilder builder, String name, long nanos) {
+        builder.append(name).append(nanos / 1000).append('.').append(nanos / 100 % 10).append("us");
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.maxwellnie.free.jdbc.metrics;
+
+import io.github.maxwellnie.free.jdbc.statement.StatementException;
+import io.github.maxwellnie.free.jdbc.statement.StatementListener;
+import io.github.maxwellnie.free.jdbc.statement.StatementTrace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statement listener aggregating execution counters and latency histograms per SQL string.
+ * <p>
+ * Recording takes no lock: counters are {@link java.util.concurrent.atomic.LongAdder}s and histograms are striped
+ * {@link LatencyHistogram}s, so one instance can be shared by all statement wrappers of an application.
+ * To bound memory, executions of SQL strings beyond the statement limit are aggregated under {@link #OTHER_SQL}.
+ * <pre><code>
+ *   StatementMetrics metrics = new StatementMetrics();
+ *   statement.setStatementListener(metrics);
+ *   ...
+ *   System.out.println(metrics.dump());
+ * </code></pre>
+ *
+ * @author Maxwell Nie
+ */
+public class StatementMetrics implements StatementListener {
+    public static final int DEFAULT_MAX_STATEMENTS = 1000;
+    public static final String OTHER_SQL = "<other>";
+    private final ConcurrentHashMap<String, SqlMetrics> metrics = new ConcurrentHashMap<>();
+    private final int maxStatements;
+    private final int stripes;
+
+    public StatementMetrics() {
+        this(DEFAULT_MAX_STATEMENTS, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+    }
+
+    /**
+     * @param maxStatements Number of distinct SQL strings tracked separately, must be greater than 0
+     * @param stripes       Maximum number of histogram stripes per SQL string, must be greater than 0. Stripes are
+     *                      allocated as threads record, about 2.5 KB each
+     * @throws StatementException if maxStatements or stripes is not greater than 0
+     */
+    public StatementMetrics(int maxStatements, int stripes) {
+        if (maxStatements <= 0)
+            throw new StatementException("Max statements must be greater than 0, Actual: " + maxStatements);
+        if (stripes <= 0)
+            throw new StatementException("Stripes must be greater than 0, Actual: " + stripes);
+        this.maxStatements = maxStatements;
+        this.stripes = stripes;
+    }
+
+    @Override
+    public void onExecution(StatementTrace trace) {
+        String sql = trace.getSql() == null ? OTHER_SQL : trace.getSql();
+        SqlMetrics sqlMetrics = metrics.get(sql);
+        if (sqlMetrics == null) {
+            if (metrics.size() >= maxStatements)
+                sql = OTHER_SQL;
+            sqlMetrics = metrics.computeIfAbsent(sql, key -> new SqlMetrics(key, stripes));
+        }
+        sqlMetrics.record(trace);
+    }
+
+    /**
+     * @return Metrics of the SQL string, null if it has not been executed
+     */
+    public SqlMetrics get(String sql) {
+        return metrics.get(sql);
+    }
+
+    /**
+     * @return Metrics of all SQL strings executed so far
+     */
+    public Collection<SqlMetrics> getAll() {
+        return Collections.unmodifiableCollection(metrics.values());
+    }
+
+    /**
+     * Resets every counter and histogram, keeping the tracked SQL strings.
+     */
+    public void reset() {
+        for (SqlMetrics sqlMetrics : metrics.values())
+            sqlMetrics.reset();
+    }
+
+    /**
+     * Forgets all tracked SQL strings.
+     */
+    public void clear() {
+        metrics.clear();
+    }
+
+    /**
+     * Formats the metrics of every SQL string, one per line, most executed first.
+     */
+    public String dump() {
+        List<SqlMetrics> all = new ArrayList<>(metrics.values());
+        all.sort((a, b) -> Long.compare(b.getExecutions(), a.getExecutions()));
+        StringBuilder builder = new StringBuilder();
+        for (SqlMetrics sqlMetrics : all)
+            builder.append(sqlMetrics).append(System.lineSeparator());
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "StatementMetrics{statements=" + metrics.size() + ", maxStatements=" + maxStatements + "}";
+    }
+}
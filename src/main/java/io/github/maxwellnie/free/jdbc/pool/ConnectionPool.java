@@ -0,0 +1,316 @@
+package io.github.maxwellnie.free.jdbc.pool;
+
+import io.github.maxwellnie.free.jdbc.statement.PreparedStatementCache;
+import io.github.maxwellnie.free.jdbc.statement.StatementException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal connection pool on top of any {@link DataSource}, keeping one {@link PreparedStatementCache} per connection.
+ * <pre><code>
+ *   ConnectionPool pool = new ConnectionPool(dataSource, 16);
+ *   try (PooledConnection connection = pool.borrow();
+ *        PreparedIntegratedStatement statement = new PreparedIntegratedStatement(connection.getStatementCache())) {
+ *       statement.executeUpdate(singleSql);
+ *   }
+ * </code></pre>
+ * Borrowing does not lock: a thread first tries the connection it returned last, then the queue of returned
+ * connections, claiming a connection with a compare-and-set of its state. When every connection is in use and the
+ * pool is full, the borrower waits for a connection handed over directly by a returning thread.
+ * <p>
+ * A connection is validated with {@link Connection#isValid(int)} only when it has been idle for longer than the
+ * validation interval. Returned connections are rolled back when they are not in auto-commit mode, and their
+ * auto-commit mode is restored. See {@link PooledStatements} for a facade handing out statement wrappers.
+ *
+ * @author Maxwell Nie
+ */
+public class ConnectionPool implements AutoCloseable {
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 30_000;
+    public static final long DEFAULT_VALIDATION_INTERVAL_MILLIS = 500;
+    private static final long HANDOFF_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private final DataSource dataSource;
+    private final int maxSize;
+    private final CopyOnWriteArrayList<PoolEntry> connections = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<PoolEntry> idle = new ConcurrentLinkedQueue<>();
+    private final SynchronousQueue<PoolEntry> handoff = new SynchronousQueue<>();
+    private final ThreadLocal<PoolEntry> lastReturned = new ThreadLocal<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private volatile boolean closed;
+    private long borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BORROW_TIMEOUT_MILLIS);
+    private long validationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_VALIDATION_INTERVAL_MILLIS);
+    private int validationTimeoutSeconds = 5;
+    private int statementCacheCapacity = PreparedStatementCache.DEFAULT_CAPACITY;
+
+    /**
+     * @param dataSource Data source opening the pooled connections
+     * @param maxSize    Maximum number of open connections, must be greater than 0
+     */
+    public ConnectionPool(DataSource dataSource, int maxSize) {
+        if (dataSource == null)
+            throw new StatementException("Data source cannot be null");
+        if (maxSize <= 0)
+            throw new StatementException("Pool size must be greater than 0, Actual: " + maxSize);
+        this.dataSource = dataSource;
+        this.maxSize = maxSize;
+    }
+
+    public ConnectionPool setBorrowTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0)
+            throw new StatementException("Borrow timeout cannot be negative, Actual: " + timeout);
+        this.borrowTimeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * Sets how long a connection can stay idle before it is validated again when borrowed, 0 validates every borrow.
+     */
+    public ConnectionPool setValidationInterval(long interval, TimeUnit unit) {
+        if (interval < 0)
+            throw new StatementException("Validation interval cannot be negative, Actual: " + interval);
+        this.validationIntervalNanos = unit.toNanos(interval);
+        return this;
+    }
+
+    public ConnectionPool setValidationTimeout(int seconds) {
+        if (seconds < 0)
+            throw new StatementException("Validation timeout cannot be negative, Actual: " + seconds);
+        this.validationTimeoutSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Sets the capacity of the statement cache of connections opened afterwards.
+     */
+    public ConnectionPool setStatementCacheCapacity(int statementCacheCapacity) {
+        if (statementCacheCapacity <= 0)
+            throw new StatementException("Statement cache capacity must be greater than 0, Actual: " + statementCacheCapacity);
+        this.statementCacheCapacity = statementCacheCapacity;
+        return this;
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout when all connections are in use.
+     *
+     * @return New borrowing of a connection, owned by the caller until it is closed
+     * @throws StatementException if the pool is closed, no connection becomes available in time or a connection cannot be opened
+     */
+    public PooledConnection borrow() throws StatementException {
+        return new PooledConnection(this, acquire());
+    }
+
+    private PoolEntry acquire() {
+        validateOpen();
+        PoolEntry entry = lastReturned.get();
+        if (entry != null && entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE) && validate(entry))
+            return entry;
+        long deadline = System.nanoTime() + borrowTimeoutNanos;
+        for (; ; ) {
+            entry = pollIdle();
+            if (entry != null) {
+                if (validate(entry))
+                    return entry;
+                continue;
+            }
+            entry = open();
+            if (entry != null)
+                return entry;
+            entry = await(deadline);
+            if (entry != null && validate(entry))
+                return entry;
+        }
+    }
+
+    private PoolEntry pollIdle() {
+        PoolEntry entry;
+        while ((entry = idle.poll()) != null) {
+            entry.queued.set(false);
+            if (entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE))
+                return entry;
+        }
+        return null;
+    }
+
+    private PoolEntry open() {
+        for (int current = size.get(); current < maxSize; current = size.get()) {
+            if (!size.compareAndSet(current, current + 1))
+                continue;
+            PoolEntry entry;
+            try {
+                entry = newEntry();
+            } catch (RuntimeException e) {
+                size.decrementAndGet();
+                throw e;
+            }
+            connections.add(entry);
+            if (closed) {
+                // discarding gives the slot back, the pool closed while the connection was opened
+                discard(entry);
+                validateOpen();
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    private PoolEntry newEntry() {
+        Connection raw;
+        try {
+            raw = dataSource.getConnection();
+            try {
+                return new PoolEntry(raw, statementCacheCapacity, raw.getAutoCommit());
+            } catch (SQLException | RuntimeException e) {
+                close(raw, e);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new StatementException("Pooled connection creation failed, Error: " + e.getMessage() +
+                    ", Expected: open connection, Actual: SQLException from the data source", e);
+        }
+    }
+
+    private PoolEntry await(long deadline) {
+        waiters.incrementAndGet();
+        try {
+            for (; ; ) {
+                validateOpen();
+                PoolEntry entry = pollIdle();
+                if (entry != null)
+                    return entry;
+                if (size.get() < maxSize)
+                    return null;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    throw new StatementException("Connection borrowing timed out after " + TimeUnit.NANOSECONDS.toMillis(borrowTimeoutNanos) +
+                            " ms, Expected: available connection, Actual: all " + maxSize + " connections in use");
+                entry = handoff.poll(Math.min(remaining, HANDOFF_POLL_NANOS), TimeUnit.NANOSECONDS);
+                if (entry != null)
+                    return entry;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StatementException("Connection borrowing interrupted", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    private boolean validate(PoolEntry entry) {
+        if (validationIntervalNanos > 0 && System.nanoTime() - entry.lastUsedNanos < validationIntervalNanos)
+            return true;
+        boolean valid;
+        try {
+            valid = entry.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            valid = false;
+        }
+        if (!valid)
+            discard(entry);
+        return valid;
+    }
+
+    /**
+     * Resets the connection and hands it to a waiting borrower, or puts it back as idle.
+     */
+    void release(PoolEntry entry) {
+        Connection raw = entry.connection;
+        try {
+            if (!raw.getAutoCommit()) {
+                raw.rollback();
+                if (entry.autoCommit)
+                    raw.setAutoCommit(true);
+            } else if (!entry.autoCommit) {
+                raw.setAutoCommit(false);
+            }
+        } catch (SQLException e) {
+            discard(entry);
+            return;
+        }
+        entry.lastUsedNanos = System.nanoTime();
+        if (closed) {
+            discard(entry);
+            return;
+        }
+        if (waiters.get() > 0 && handoff.offer(entry))
+            return;
+        entry.state.set(PoolEntry.IDLE);
+        lastReturned.set(entry);
+        if (entry.queued.compareAndSet(false, true))
+            idle.offer(entry);
+    }
+
+    private void discard(PoolEntry entry) {
+        if (entry.state.getAndSet(PoolEntry.REMOVED) == PoolEntry.REMOVED)
+            return;
+        if (connections.remove(entry))
+            size.decrementAndGet();
+        try {
+            entry.statementCache.close();
+        } catch (StatementException ignored) {
+            // the connection is closed right after
+        }
+        close(entry.connection, null);
+    }
+
+    private static void close(Connection connection, Exception failure) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            if (failure != null)
+                failure.addSuppressed(e);
+        }
+    }
+
+    private void validateOpen() {
+        if (closed)
+            throw new StatementException("Connection pool is closed, Expected: open pool, Actual: closed pool");
+    }
+
+    /**
+     * @return Number of open connections, idle or in use
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return Number of open connections that are not borrowed
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (PoolEntry entry : connections) {
+            if (entry.state.get() == PoolEntry.IDLE)
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{size=" + size.get() + ", idle=" + getIdleCount() + ", maxSize=" + maxSize + ", waiters=" + waiters.get() + "}";
+    }
+
+    /**
+     * Closes the idle connections and refuses new borrows. Borrowed connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (PoolEntry entry : connections) {
+            if (entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE))
+                discard(entry);
+        }
+        idle.clear();
+    }
+}
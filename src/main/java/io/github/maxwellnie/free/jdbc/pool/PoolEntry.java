@@ -0,0 +1,35 @@
+package io.github.maxwellnie.free.jdbc.pool;
+
+import io.github.maxwellnie.free.jdbc.statement.PreparedStatementCache;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An open connection of a {@link ConnectionPool} together with its prepared statement cache, handed to each borrower
+ * through a new {@link PooledConnection}.
+ *
+ * @author Maxwell Nie
+ */
+final class PoolEntry {
+    static final int IDLE = 0;
+    static final int IN_USE = 1;
+    static final int REMOVED = -1;
+    final AtomicInteger state = new AtomicInteger(IN_USE);
+    final AtomicBoolean queued = new AtomicBoolean();
+    final Connection connection;
+    final PreparedStatementCache statementCache;
+    /**
+     * Auto-commit mode the connection had when it was opened, restored when it is returned.
+     */
+    final boolean autoCommit;
+    long lastUsedNanos;
+
+    PoolEntry(Connection connection, int statementCacheCapacity, boolean autoCommit) {
+        this.connection = connection;
+        this.statementCache = new PreparedStatementCache(connection, statementCacheCapacity);
+        this.autoCommit = autoCommit;
+        this.lastUsedNanos = System.nanoTime();
+    }
+}
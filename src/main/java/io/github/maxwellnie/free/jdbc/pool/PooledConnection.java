@@ -0,0 +1,57 @@
+package io.github.maxwellnie.free.jdbc.pool;
+
+import io.github.maxwellnie.free.jdbc.statement.PreparedStatementCache;
+import io.github.maxwellnie.free.jdbc.statement.StatementException;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * One borrowing of a connection of a {@link ConnectionPool} together with its prepared statement cache. It is owned by
+ * the caller that borrowed it until it is closed, which returns the connection to the pool. The underlying connection
+ * must not be closed.
+ * <p>
+ * Every borrow hands out a new instance, so closing an instance again, even after the connection was borrowed by
+ * someone else, has no effect, and a closed instance refuses to give out the connection.
+ *
+ * @author Maxwell Nie
+ */
+public final class PooledConnection implements AutoCloseable {
+    private static final AtomicReferenceFieldUpdater<PooledConnection, PoolEntry> ENTRY =
+            AtomicReferenceFieldUpdater.newUpdater(PooledConnection.class, PoolEntry.class, "entry");
+    private final ConnectionPool pool;
+    private volatile PoolEntry entry;
+
+    PooledConnection(ConnectionPool pool, PoolEntry entry) {
+        this.pool = pool;
+        this.entry = entry;
+    }
+
+    public Connection getConnection() {
+        return entry().connection;
+    }
+
+    /**
+     * @return Statement cache living as long as the pooled connection, shared by all its borrowers in turn
+     */
+    public PreparedStatementCache getStatementCache() {
+        return entry().statementCache;
+    }
+
+    private PoolEntry entry() {
+        PoolEntry current = entry;
+        if (current == null)
+            throw new StatementException("Pooled connection is not borrowed, Expected: borrowed connection, Actual: returned connection");
+        return current;
+    }
+
+    /**
+     * Returns the connection to the pool. Closing it again has no effect.
+     */
+    @Override
+    public void close() {
+        PoolEntry current = entry;
+        if (current != null && ENTRY.compareAndSet(this, current, null))
+            pool.release(current);
+    }
+}
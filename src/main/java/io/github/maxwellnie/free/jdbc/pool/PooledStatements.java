@@ -0,0 +1,112 @@
+package io.github.maxwellnie.free.jdbc.pool;
+
+import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.single.SingleSql;
+import io.github.maxwellnie.free.jdbc.statement.AdaptiveFetchSize;
+import io.github.maxwellnie.free.jdbc.statement.CallableIntegrateStatement;
+import io.github.maxwellnie.free.jdbc.statement.Configuration;
+import io.github.maxwellnie.free.jdbc.statement.PreparedIntegratedStatement;
+import io.github.maxwellnie.free.jdbc.statement.ResultParser;
+import io.github.maxwellnie.free.jdbc.statement.SimpleIntegratedStatement;
+import io.github.maxwellnie.free.jdbc.statement.StatementException;
+import io.github.maxwellnie.free.jdbc.statement.StatementListener;
+
+import java.sql.PreparedStatement;
+import java.util.function.Function;
+
+/**
+ * Thread safe facade over a {@link ConnectionPool} handing out ready-made statement wrappers.
+ * Each call borrows a connection, runs the work with a configured wrapper and returns the connection,
+ * so wrappers and connections never escape the call.
+ * <pre><code>
+ *   PooledStatements statements = new PooledStatements(pool).setConfiguration(configuration);
+ *   int count = statements.executeUpdate(singleSql);
+ *   List&lt;User&gt; users = statements.prepared(statement -&gt; statement.executeQuery(query, parser));
+ * </code></pre>
+ * Prepared wrappers take their statements from the cache of the borrowed connection.
+ *
+ * @author Maxwell Nie
+ */
+public class PooledStatements {
+    private final ConnectionPool pool;
+    private volatile Configuration configuration;
+    private volatile StatementListener statementListener;
+    private volatile AdaptiveFetchSize adaptiveFetchSize;
+
+    public PooledStatements(ConnectionPool pool) {
+        if (pool == null)
+            throw new StatementException("Connection pool cannot be null");
+        this.pool = pool;
+    }
+
+    public PooledStatements setConfiguration(Configuration configuration) {
+        this.configuration = configuration;
+        return this;
+    }
+
+    public PooledStatements setStatementListener(StatementListener statementListener) {
+        this.statementListener = statementListener;
+        return this;
+    }
+
+    /**
+     * Sets the fetch size chooser shared by the prepared wrappers of every connection.
+     */
+    public PooledStatements setAdaptiveFetchSize(AdaptiveFetchSize adaptiveFetchSize) {
+        this.adaptiveFetchSize = adaptiveFetchSize;
+        return this;
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Runs the work with a prepared statement wrapper on a borrowed connection.
+     */
+    public <R> R prepared(Function<? super PreparedIntegratedStatement, R> work) {
+        try (PooledConnection connection = pool.borrow();
+             PreparedIntegratedStatement statement = new PreparedIntegratedStatement(connection.getStatementCache())) {
+            statement.setConfiguration(configuration);
+            statement.setStatementListener(statementListener);
+            statement.setAdaptiveFetchSize(adaptiveFetchSize);
+            return work.apply(statement);
+        }
+    }
+
+    /**
+     * Runs the work with a simple statement wrapper on a borrowed connection.
+     */
+    public <R> R simple(Function<? super SimpleIntegratedStatement, R> work) {
+        try (PooledConnection connection = pool.borrow();
+             SimpleIntegratedStatement statement = new SimpleIntegratedStatement(connection.getConnection())) {
+            statement.setConfiguration(configuration);
+            statement.setStatementListener(statementListener);
+            return work.apply(statement);
+        }
+    }
+
+    /**
+     * Runs the work with a callable statement wrapper on a borrowed connection.
+     */
+    public <R> R callable(Function<? super CallableIntegrateStatement, R> work) {
+        try (PooledConnection connection = pool.borrow();
+             CallableIntegrateStatement statement = new CallableIntegrateStatement(connection.getConnection())) {
+            statement.setConfiguration(configuration);
+            statement.setStatementListener(statementListener);
+            return work.apply(statement);
+        }
+    }
+
+    public int executeUpdate(SingleSql singleSql) {
+        return prepared(statement -> statement.executeUpdate(singleSql));
+    }
+
+    public <R> R executeQuery(SingleSql singleSql, ResultParser<PreparedStatement, Boolean, R> resultParser) {
+        return prepared(statement -> statement.executeQuery(singleSql, resultParser));
+    }
+
+    public int[] executeBatch(BatchSql batchSql) {
+        return prepared(statement -> statement.executeBatch(batchSql));
+    }
+}
@@ -0,0 +1,366 @@
+package io.github.maxwellnie.free.jdbc.script;
+
+/**
+ * Single-pass state machine finding the statement boundaries of a SQL script, one character at a time.
+ * <p>
+ * Semicolons are ignored inside string literals, quoted identifiers, comments, PostgreSQL dollar-quoted bodies and
+ * the BEGIN ... END blocks of CREATE PROCEDURE, FUNCTION, TRIGGER, EVENT, PACKAGE BODY and TYPE BODY statements,
+ * including the Oracle style declaration sections after IS or AS, those of the procedures and functions of a package
+ * or type body too. Leading and trailing whitespace and comments are
+ * not part of a statement, except MySQL {@code /*!...*}{@code /} and hint {@code /*+...*}{@code /} comments.
+ * The lexer keeps no reference to the script and does not allocate while scanning.
+ *
+ * @author Maxwell Nie
+ */
+final class SqlLexer {
+    private static final int NORMAL = 0;
+    private static final int DASH = 1;
+    private static final int SLASH = 2;
+    private static final int LINE_COMMENT = 3;
+    private static final int BLOCK_COMMENT_START = 4;
+    private static final int BLOCK_COMMENT = 5;
+    private static final int BLOCK_COMMENT_STAR = 6;
+    private static final int SINGLE_QUOTE = 7;
+    private static final int SINGLE_QUOTE_END = 8;
+    private static final int DOUBLE_QUOTE = 9;
+    private static final int DOUBLE_QUOTE_END = 10;
+    private static final int BACKTICK = 11;
+    private static final int ESCAPE = 12;
+    private static final int DOLLAR_TAG = 13;
+    private static final int DOLLAR_BODY = 14;
+    private static final int MAX_WORD = 16;
+    private static final int MAX_TAG = 32;
+    private final boolean backslashEscapes;
+    private final char[] word = new char[MAX_WORD + 1];
+    private final char[] tag = new char[MAX_TAG];
+    private int state;
+    private int escapedState;
+    private boolean contentComment;
+    private boolean previousWordChar;
+    private int wordLength;
+    private int tagLength;
+    private int tagMatch;
+    private int start = -1;
+    private int end = -1;
+    private int wordCount;
+    private boolean create;
+    private boolean routine;
+    private int depth;
+    private boolean pendingEnd;
+    private boolean pendingAs;
+    private int declarations;
+    private boolean member;
+
+    /**
+     * @param backslashEscapes true if a backslash escapes the next character inside quotes, as in MySQL
+     */
+    SqlLexer(boolean backslashEscapes) {
+        this.backslashEscapes = backslashEscapes;
+    }
+
+    /**
+     * @return Position of the first character of the current statement, -1 if it has no content yet
+     */
+    int start() {
+        return start;
+    }
+
+    /**
+     * @return Position after the last character of the current statement
+     */
+    int end() {
+        return end;
+    }
+
+    /**
+     * Prepares for the next statement after a delimiter was reported.
+     */
+    void reset() {
+        start = -1;
+        end = -1;
+        wordCount = 0;
+        create = false;
+        routine = false;
+        depth = 0;
+        pendingEnd = false;
+        pendingAs = false;
+        declarations = 0;
+        member = false;
+    }
+
+    /**
+     * Ends the script at the given position.
+     *
+     * @return true if the last statement has content
+     */
+    boolean finish(int position) {
+        if (state == DASH || state == SLASH)
+            content(position - 1);
+        else if (state == NORMAL)
+            endWord();
+        state = NORMAL;
+        return start >= 0;
+    }
+
+    /**
+     * Consumes the character at the position.
+     *
+     * @return true if the character is a semicolon ending the current statement
+     */
+    boolean accept(char c, int position) {
+        for (; ; ) {
+            switch (state) {
+                case NORMAL:
+                    return normal(c, position);
+                case DASH:
+                    if (c == '-') {
+                        state = LINE_COMMENT;
+                        return false;
+                    }
+                    content(position - 1);
+                    nonWordToken();
+                    state = NORMAL;
+                    continue;
+                case SLASH:
+                    if (c == '*') {
+                        state = BLOCK_COMMENT_START;
+                        return false;
+                    }
+                    content(position - 1);
+                    nonWordToken();
+                    state = NORMAL;
+                    continue;
+                case LINE_COMMENT:
+                    if (c == '\n')
+                        state = NORMAL;
+                    return false;
+                case BLOCK_COMMENT_START:
+                    contentComment = c == '!' || c == '+';
+                    if (contentComment) {
+                        nonWordToken();
+                        content(position - 2);
+                    }
+                    state = BLOCK_COMMENT;
+                    continue;
+                case BLOCK_COMMENT:
+                    if (contentComment)
+                        content(position);
+                    if (c == '*')
+                        state = BLOCK_COMMENT_STAR;
+                    return false;
+                case BLOCK_COMMENT_STAR:
+                    if (contentComment)
+                        content(position);
+                    if (c == '/')
+                        state = NORMAL;
+                    else if (c != '*')
+                        state = BLOCK_COMMENT;
+                    return false;
+                case SINGLE_QUOTE:
+                    content(position);
+                    if (c == '\'')
+                        state = SINGLE_QUOTE_END;
+                    else if (c == '\\' && backslashEscapes) {
+                        escapedState = SINGLE_QUOTE;
+                        state = ESCAPE;
+                    }
+                    return false;
+                case SINGLE_QUOTE_END:
+                    if (c == '\'') {
+                        content(position);
+                        state = SINGLE_QUOTE;
+                        return false;
+                    }
+                    state = NORMAL;
+                    continue;
+                case DOUBLE_QUOTE:
+                    content(position);
+                    if (c == '"')
+                        state = DOUBLE_QUOTE_END;
+                    else if (c == '\\' && backslashEscapes) {
+                        escapedState = DOUBLE_QUOTE;
+                        state = ESCAPE;
+                    }
+                    return false;
+                case DOUBLE_QUOTE_END:
+                    if (c == '"') {
+                        content(position);
+                        state = DOUBLE_QUOTE;
+                        return false;
+                    }
+                    state = NORMAL;
+                    continue;
+                case ESCAPE:
+                    content(position);
+                    state = escapedState;
+                    return false;
+                case BACKTICK:
+                    content(position);
+                    if (c == '`')
+                        state = NORMAL;
+                    return false;
+                case DOLLAR_TAG:
+                    if (c == '$') {
+                        content(position);
+                        tagMatch = -1;
+                        state = DOLLAR_BODY;
+                        return false;
+                    }
+                    if (tagLength < MAX_TAG && (Character.isLetter(c) || c == '_' || (tagLength > 0 && Character.isDigit(c)))) {
+                        tag[tagLength++] = c;
+                        content(position);
+                        return false;
+                    }
+                    state = NORMAL;
+                    continue;
+                case DOLLAR_BODY:
+                    content(position);
+                    if (tagMatch >= 0 && tagMatch < tagLength && c == tag[tagMatch])
+                        tagMatch++;
+                    else if (tagMatch == tagLength && c == '$')
+                        state = NORMAL;
+                    else
+                        tagMatch = c == '$' ? 0 : -1;
+                    return false;
+                default:
+                    throw new IllegalStateException("Unknown lexer state: " + state);
+            }
+        }
+    }
+
+    private boolean normal(char c, int position) {
+        if (Character.isLetterOrDigit(c) || c == '_' || (c == '$' && previousWordChar)) {
+            if (wordLength <= MAX_WORD)
+                word[wordLength++] = c;
+            previousWordChar = true;
+            content(position);
+            return false;
+        }
+        previousWordChar = false;
+        endWord();
+        switch (c) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\r':
+            case '\f':
+                return false;
+            case '-':
+                state = DASH;
+                return false;
+            case '/':
+                state = SLASH;
+                return false;
+            case '\'':
+                state = SINGLE_QUOTE;
+                break;
+            case '"':
+                state = DOUBLE_QUOTE;
+                break;
+            case '`':
+                state = BACKTICK;
+                break;
+            case '$':
+                tagLength = 0;
+                state = DOLLAR_TAG;
+                break;
+            case ';':
+                nonWordToken();
+                member = false;
+                if (depth > 0) {
+                    content(position);
+                    return false;
+                }
+                return true;
+            default:
+                if (Character.isWhitespace(c))
+                    return false;
+        }
+        nonWordToken();
+        content(position);
+        return false;
+    }
+
+    private void content(int position) {
+        if (start < 0)
+            start = position;
+        end = position + 1;
+    }
+
+    private void nonWordToken() {
+        pendingAs = false;
+        if (pendingEnd) {
+            pendingEnd = false;
+            closeBlock();
+        }
+    }
+
+    private void closeBlock() {
+        if (depth > 0)
+            depth--;
+    }
+
+    private void endWord() {
+        if (wordLength == 0)
+            return;
+        wordCount++;
+        if (wordCount == 1)
+            create = is("CREATE");
+        else if (create)
+            keyword();
+        wordLength = 0;
+    }
+
+    private void keyword() {
+        if (pendingEnd) {
+            pendingEnd = false;
+            if (is("IF") || is("LOOP") || is("WHILE") || is("REPEAT") || is("FOR"))
+                return;
+            closeBlock();
+            if (is("CASE"))
+                return;
+        }
+        if (pendingAs) {
+            pendingAs = false;
+            // A member of a package or type body always opens a block, which its BEGIN enters if it has no declarations
+            if (depth > 0 ? !(is("LANGUAGE") || is("EXTERNAL")) : !(is("BEGIN") || is("SELECT") || is("RETURN") || is("WITH") ||
+                    is("LANGUAGE") || is("INSERT") || is("UPDATE") || is("DELETE") || is("SET") || is("VALUES") || is("EXTERNAL") ||
+                    is("CALL"))) {
+                depth++;
+                declarations++;
+            }
+        }
+        if (!routine) {
+            routine = wordCount <= 8 && (is("PROCEDURE") || is("FUNCTION") || is("TRIGGER") || is("EVENT") || is("PACKAGE") || is("BODY"));
+            if (!routine)
+                return;
+        }
+        if (is("BEGIN")) {
+            if (declarations > 0)
+                declarations--;
+            else
+                depth++;
+        } else if (is("CASE")) {
+            if (depth > 0)
+                depth++;
+        } else if (is("END")) {
+            if (depth > 0)
+                pendingEnd = true;
+        } else if (is("PROCEDURE") || is("FUNCTION")) {
+            member = declarations > 0;
+        } else if ((depth == 0 || member) && (is("IS") || is("AS"))) {
+            member = false;
+            pendingAs = true;
+        }
+    }
+
+    private boolean is(String keyword) {
+        if (wordLength != keyword.length())
+            return false;
+        for (int i = 0; i < wordLength; i++) {
+            if (Character.toUpperCase(word[i]) != keyword.charAt(i))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.maxwellnie.free.jdbc.script;
+
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A SQL script split into statements. The statements are kept as start and end offsets into the original script,
+ * a statement string is only created when it is requested.
+ * <pre><code>
+ *   SqlScript script = SqlScript.of("INSERT INTO t VALUES('a;b'); -- done;\nDELETE FROM t");
+ *   script.size();         // 2
+ *   script.getStatement(1); // DELETE FROM t
+ * </code></pre>
+ * See {@link SqlScriptReader} for scripts too large to be held in memory.
+ *
+ * @author Maxwell Nie
+ */
+public final class SqlScript {
+    private static final int MAX_CACHED_SCRIPTS = 256;
+    private static final int MAX_CACHED_LENGTH = 64 * 1024;
+    private static final int[] EMPTY_BOUNDS = new int[0];
+    private static final Map<String, SqlScript> CACHE = new ConcurrentHashMap<>();
+    private final String script;
+    private final int[] bounds;
+
+    private SqlScript(String script, int[] bounds) {
+        this.script = script;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Returns the split script, cached for scripts up to 64K characters.
+     *
+     * @param script SQL script with statements separated by semicolons
+     * @return Split script
+     */
+    public static SqlScript of(String script) {
+        if (script == null)
+            throw new SqlBuildException("SQL script cannot be null");
+        if (script.length() > MAX_CACHED_LENGTH)
+            return compile(script, false);
+        SqlScript sqlScript = CACHE.get(script);
+        if (sqlScript == null) {
+            sqlScript = compile(script, false);
+            if (CACHE.size() >= MAX_CACHED_SCRIPTS)
+                CACHE.clear();
+            CACHE.put(script, sqlScript);
+        }
+        return sqlScript;
+    }
+
+    /**
+     * Splits the script without caching it.
+     *
+     * @param script           SQL script with statements separated by semicolons
+     * @param backslashEscapes true if a backslash escapes the next character inside quotes, as in MySQL
+     * @return Split script
+     */
+    public static SqlScript compile(String script, boolean backslashEscapes) {
+        if (script == null)
+            throw new SqlBuildException("SQL script cannot be null");
+        SqlLexer lexer = new SqlLexer(backslashEscapes);
+        int[] bounds = EMPTY_BOUNDS;
+        int count = 0;
+        int length = script.length();
+        for (int i = 0; i < length; i++) {
+            if (lexer.accept(script.charAt(i), i)) {
+                if (lexer.start() >= 0)
+                    bounds = add(bounds, count++, lexer.start(), lexer.end());
+                lexer.reset();
+            }
+        }
+        if (lexer.finish(length))
+            bounds = add(bounds, count++, lexer.start(), lexer.end());
+        return new SqlScript(script, bounds.length == count * 2 ? bounds : Arrays.copyOf(bounds, count * 2));
+    }
+
+    private static int[] add(int[] bounds, int index, int start, int end) {
+        if (index * 2 == bounds.length)
+            bounds = Arrays.copyOf(bounds, Math.max(8, bounds.length * 2));
+        bounds[index * 2] = start;
+        bounds[index * 2 + 1] = end;
+        return bounds;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    /**
+     * @return Number of non-empty statements in the script
+     */
+    public int size() {
+        return bounds.length >> 1;
+    }
+
+    /**
+     * @return Offset of the first character of the statement in the script
+     */
+    public int getStart(int index) {
+        checkIndex(index);
+        return bounds[index * 2];
+    }
+
+    /**
+     * @return Offset after the last character of the statement in the script, the semicolon is not included
+     */
+    public int getEnd(int index) {
+        checkIndex(index);
+        return bounds[index * 2 + 1];
+    }
+
+    public String getStatement(int index) {
+        checkIndex(index);
+        return script.substring(bounds[index * 2], bounds[index * 2 + 1]);
+    }
+
+    /**
+     * @return Read-only view of the statements, each one is created on access
+     */
+    public List<String> getStatements() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getStatement(index);
+            }
+
+            @Override
+            public int size() {
+                return SqlScript.this.size();
+            }
+        };
+    }
+
+    /**
+     * Adds every statement of the script to the batch of the statement.
+     */
+    public void addBatch(Statement statement) throws SQLException {
+        for (int i = 0; i < bounds.length; i += 2)
+            statement.addBatch(script.substring(bounds[i], bounds[i + 1]));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Statement: " + index + ", Size: " + size());
+    }
+
+    @Override
+    public String toString() {
+        return "SqlScript{statements=" + size() + ", length=" + script.length() + "}";
+    }
+}
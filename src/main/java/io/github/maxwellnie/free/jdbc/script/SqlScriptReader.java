@@ -0,0 +1,130 @@
+package io.github.maxwellnie.free.jdbc.script;
+
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the statements of a SQL script one at a time, so migration scripts of any size can be executed
+ * without loading them into memory. Only the text of the statement being read is buffered.
+ * <pre><code>
+ *   try (SqlScriptReader reader = new SqlScriptReader(Files.newBufferedReader(path))) {
+ *       while (reader.hasNext())
+ *           statement.addBatch(reader.next());
+ *   }
+ * </code></pre>
+ * Statements are split by the same rules as {@link SqlScript}.
+ *
+ * @author Maxwell Nie
+ */
+public class SqlScriptReader implements Iterator<String>, AutoCloseable {
+    private static final int BUFFER_SIZE = 8192;
+    private final Reader reader;
+    private final SqlLexer lexer;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder statement = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean eof;
+    private String next;
+    private int count;
+
+    public SqlScriptReader(Reader reader) {
+        this(reader, false);
+    }
+
+    /**
+     * @param reader           Reader of the script, closed with this reader
+     * @param backslashEscapes true if a backslash escapes the next character inside quotes, as in MySQL
+     */
+    public SqlScriptReader(Reader reader, boolean backslashEscapes) {
+        if (reader == null)
+            throw new SqlBuildException("SQL script reader cannot be null");
+        this.reader = reader;
+        this.lexer = new SqlLexer(backslashEscapes);
+    }
+
+    /**
+     * @throws SqlBuildException if the script cannot be read
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !eof)
+            next = read();
+        return next != null;
+    }
+
+    /**
+     * @return Next non-empty statement without its semicolon
+     * @throws SqlBuildException if the script cannot be read
+     */
+    @Override
+    public String next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        String statement = next;
+        next = null;
+        count++;
+        return statement;
+    }
+
+    /**
+     * @return Number of statements returned so far
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private String read() {
+        for (; ; ) {
+            if (position == limit && !fill()) {
+                String last = lexer.finish(statement.length()) ? statement.substring(lexer.start(), lexer.end()) : null;
+                statement.setLength(0);
+                lexer.reset();
+                return last;
+            }
+            while (position < limit) {
+                char c = buffer[position++];
+                int offset = statement.length();
+                statement.append(c);
+                if (lexer.accept(c, offset)) {
+                    String sql = lexer.start() >= 0 ? statement.substring(lexer.start(), lexer.end()) : null;
+                    statement.setLength(0);
+                    lexer.reset();
+                    if (sql != null)
+                        return sql;
+                }
+            }
+        }
+    }
+
+    private boolean fill() {
+        try {
+            int read;
+            do {
+                read = reader.read(buffer, 0, BUFFER_SIZE);
+            } while (read == 0);
+            if (read < 0) {
+                eof = true;
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new SqlBuildException("Reading SQL script failed after statement " + count + ", Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws SqlBuildException {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new SqlBuildException("Closing SQL script reader failed, Error: " + e.getMessage(), e);
+        }
+    }
+}
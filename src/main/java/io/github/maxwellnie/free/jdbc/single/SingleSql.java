@@ -1,9 +1,9 @@
 package io.github.maxwellnie.free.jdbc.single;
 
 import io.github.maxwellnie.free.jdbc.Sql;
+import io.github.maxwellnie.free.jdbc.statement.ParameterBinders;
 import io.github.maxwellnie.free.jdbc.statement.ParametersHandler;
 
-import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.util.List;
 
@@ -13,7 +13,7 @@ import java.util.List;
 public interface SingleSql extends Sql {
     ParametersHandler<PreparedStatement, SingleSql> PREPARED_STATEMENT_SINGLE_SQL_PARAMETERS_HANDLER = (statement, sql) -> {
         for (int i = 0; i < sql.getSqlParameters().size(); i++) {
-            statement.setObject(i + 1, sql.getSqlParameters().get(i));
+            ParameterBinders.bind(statement, i + 1, sql.getSqlParameters().get(i));
         }
     };
 
@@ -0,0 +1,301 @@
+package io.github.maxwellnie.free.jdbc.single;
+
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+import io.github.maxwellnie.free.jdbc.statement.ParameterBinders;
+import io.github.maxwellnie.free.jdbc.statement.ParametersHandler;
+import io.github.maxwellnie.free.jdbc.statement.PreparedStatementCache;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precompiled shape of a parameterized SQL statement: the interned SQL string, its hash code, its number of
+ * {@code ?} placeholders and its statement cache key, computed once.
+ * <p>
+ * A shape is meant to be kept in a static field per call site. Executing it with a reusable {@code Object[]} or
+ * with typed {@link Parameters} slots binds the values straight to the statement, without building a SQL string,
+ * a parameter list or a {@link SingleSql} per call.
+ * <pre><code>
+ *   static final SqlShape UPDATE_BALANCE = SqlShape.of("UPDATE account SET balance = ? WHERE id = ?");
+ *
+ *   SqlShape.Parameters parameters = UPDATE_BALANCE.newParameters();
+ *   parameters.setDouble(1, balance).setLong(2, id);
+ *   statement.executeUpdate(parameters);
+ * </code></pre>
+ *
+ * @author Maxwell Nie
+ */
+public final class SqlShape {
+    /**
+     * Binds an {@code Object[]} of parameter values in order.
+     */
+    public static final ParametersHandler<PreparedStatement, Object[]> OBJECT_ARRAY_PARAMETERS_HANDLER = (statement, values) -> {
+        for (int i = 0; i < values.length; i++)
+            ParameterBinders.bind(statement, i + 1, values[i]);
+    };
+    /**
+     * Binds typed parameter slots.
+     */
+    public static final ParametersHandler<PreparedStatement, Parameters> PARAMETERS_HANDLER = (statement, parameters) -> parameters.bind(statement);
+    private static final byte UNSET = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte OBJECT = 5;
+    private static final byte NULL = 6;
+    private final String sql;
+    private final int sqlHash;
+    private final int parameterCount;
+    private final PreparedStatementCache.Key cacheKey;
+
+    private SqlShape(String sql, int parameterCount) {
+        this.sql = sql;
+        this.sqlHash = sql.hashCode();
+        this.parameterCount = parameterCount;
+        this.cacheKey = new PreparedStatementCache.Key(sql, sqlHash, 0, 0, 0, -1);
+    }
+
+    /**
+     * Creates the shape of the SQL. Placeholders inside string literals, quoted identifiers and comments are not counted.
+     *
+     * @param sql SQL with {@code ?} placeholders
+     * @throws SqlBuildException if the SQL is null or empty
+     */
+    public static SqlShape of(String sql) throws SqlBuildException {
+        if (sql == null || sql.isEmpty())
+            throw new SqlBuildException("SQL shape cannot be null or empty");
+        return new SqlShape(sql.intern(), countPlaceholders(sql));
+    }
+
+    private static int countPlaceholders(String sql) {
+        int count = 0;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : '\0';
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = sql.indexOf(c, i + 1);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '-' && next == '-') {
+                int end = sql.indexOf('\n', i + 2);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && next == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                if (c == '?')
+                    count++;
+                i++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Interned SQL string
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    public int getSqlHash() {
+        return sqlHash;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * @return Statement cache key of this shape for the default statement settings
+     */
+    public PreparedStatementCache.Key getCacheKey() {
+        return cacheKey;
+    }
+
+    /**
+     * Creates a set of typed parameter slots for this shape. The slots can be filled and executed repeatedly.
+     */
+    public Parameters newParameters() {
+        return new Parameters(this);
+    }
+
+    /**
+     * Checks that the number of values matches the number of placeholders.
+     *
+     * @throws SqlBuildException if it does not
+     */
+    public void validate(Object[] values) throws SqlBuildException {
+        int actual = values == null ? 0 : values.length;
+        if (actual != parameterCount)
+            throw new SqlBuildException("expectedParametersSize is " + parameterCount + " but actual is " + actual + " for SQL: " + sql);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof SqlShape && sql.equals(((SqlShape) o).sql);
+    }
+
+    @Override
+    public int hashCode() {
+        return sqlHash;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlShape{sql=" + sql + ", parameterCount=" + parameterCount + "}";
+    }
+
+    /**
+     * Reusable typed parameter slots of a {@link SqlShape}. int, long, double and boolean values are stored unboxed
+     * and bound with the matching typed setter. Indexes start at 1, as in JDBC.
+     * <p>
+     * A parameters object is also a {@link SingleSql}, whose parameter list is a boxing view meant for logging.
+     * It is not thread-safe.
+     */
+    public static final class Parameters implements SingleSql {
+        private final SqlShape shape;
+        private final byte[] kinds;
+        private final long[] primitives;
+        private final Object[] objects;
+
+        Parameters(SqlShape shape) {
+            this.shape = shape;
+            this.kinds = new byte[shape.parameterCount];
+            this.primitives = new long[shape.parameterCount];
+            this.objects = new Object[shape.parameterCount];
+        }
+
+        public SqlShape getShape() {
+            return shape;
+        }
+
+        public Parameters setInt(int index, int value) {
+            primitives[slot(index, INT)] = value;
+            return this;
+        }
+
+        public Parameters setLong(int index, long value) {
+            primitives[slot(index, LONG)] = value;
+            return this;
+        }
+
+        public Parameters setDouble(int index, double value) {
+            primitives[slot(index, DOUBLE)] = Double.doubleToRawLongBits(value);
+            return this;
+        }
+
+        public Parameters setBoolean(int index, boolean value) {
+            primitives[slot(index, BOOLEAN)] = value ? 1 : 0;
+            return this;
+        }
+
+        /**
+         * Sets a value bound through {@link ParameterBinders}, null binds SQL NULL.
+         */
+        public Parameters setObject(int index, Object value) {
+            objects[slot(index, value == null ? NULL : OBJECT)] = value;
+            return this;
+        }
+
+        public Parameters setNull(int index) {
+            return setObject(index, null);
+        }
+
+        /**
+         * Unsets every slot.
+         */
+        public Parameters clear() {
+            Arrays.fill(kinds, UNSET);
+            Arrays.fill(objects, null);
+            return this;
+        }
+
+        private int slot(int index, byte kind) {
+            if (index < 1 || index > kinds.length)
+                throw new SqlBuildException("Parameter index " + index + " is out of range [1, " + kinds.length + "] for SQL: " + shape.sql);
+            int slot = index - 1;
+            if (kinds[slot] == OBJECT && kind != OBJECT)
+                objects[slot] = null;
+            kinds[slot] = kind;
+            return slot;
+        }
+
+        /**
+         * Binds every slot to the statement.
+         *
+         * @throws SQLException if binding fails or a slot has not been set
+         */
+        public void bind(PreparedStatement statement) throws SQLException {
+            for (int i = 0; i < kinds.length; i++) {
+                switch (kinds[i]) {
+                    case INT:
+                        statement.setInt(i + 1, (int) primitives[i]);
+                        break;
+                    case LONG:
+                        statement.setLong(i + 1, primitives[i]);
+                        break;
+                    case DOUBLE:
+                        statement.setDouble(i + 1, Double.longBitsToDouble(primitives[i]));
+                        break;
+                    case BOOLEAN:
+                        statement.setBoolean(i + 1, primitives[i] != 0);
+                        break;
+                    case OBJECT:
+                        ParameterBinders.bind(statement, i + 1, objects[i]);
+                        break;
+                    case NULL:
+                        statement.setObject(i + 1, null);
+                        break;
+                    default:
+                        throw new SQLException("Parameter " + (i + 1) + " is not set for SQL: " + shape.sql);
+                }
+            }
+        }
+
+        private Object get(int slot) {
+            switch (kinds[slot]) {
+                case INT:
+                    return (int) primitives[slot];
+                case LONG:
+                    return primitives[slot];
+                case DOUBLE:
+                    return Double.longBitsToDouble(primitives[slot]);
+                case BOOLEAN:
+                    return primitives[slot] != 0;
+                default:
+                    return objects[slot];
+            }
+        }
+
+        @Override
+        public String getSqlString() {
+            return shape.sql;
+        }
+
+        @Override
+        public List<Object> getSqlParameters() {
+            return new AbstractList<Object>() {
+                @Override
+                public Object get(int index) {
+                    return Parameters.this.get(index);
+                }
+
+                @Override
+                public int size() {
+                    return kinds.length;
+                }
+            };
+        }
+
+        @Override
+        public String getSqlInfo() {
+            return "sql:" + shape.sql + System.lineSeparator() + "with parameters: " + getSqlParameters();
+        }
+    }
+}
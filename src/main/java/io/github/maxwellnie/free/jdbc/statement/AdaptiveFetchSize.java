@@ -0,0 +1,276 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the fetch size of each SQL string from the row counts and row widths its previous executions returned.
+ * <pre><code>
+ *   AdaptiveFetchSize fetchSize = new AdaptiveFetchSize(4L &lt;&lt; 20);
+ *   statement.setAdaptiveFetchSize(fetchSize);
+ * </code></pre>
+ * The fetch size of a SQL string is its average row count plus one, so that a small result arrives in a single round
+ * trip, but never more rows than fit in the memory budget at the estimated row width. The row count average is an
+ * exponential moving average, which follows a change of the data within a few executions. A SQL string executed for
+ * the first time uses the fetch size of the configuration.
+ * <p>
+ * Instances are thread safe and meant to be shared by all statements. At most {@link #setMaxShapes(int) max shapes}
+ * SQL strings are tracked, later ones keep the configured fetch size.
+ *
+ * @author Maxwell Nie
+ * @see PreparedIntegratedStatement#setAdaptiveFetchSize(AdaptiveFetchSize)
+ */
+public class AdaptiveFetchSize {
+    public static final int DEFAULT_MAX_SHAPES = 1024;
+    private static final int ROW_OVERHEAD = 16;
+    private static final int COLUMN_OVERHEAD = 16;
+    private static final int MAX_COLUMN_WIDTH = 4096;
+    private final long memoryBudget;
+    private final ConcurrentHashMap<String, Shape> shapes = new ConcurrentHashMap<>();
+    private int minFetchSize = 10;
+    private int maxFetchSize = 10_000;
+    private int maxShapes = DEFAULT_MAX_SHAPES;
+
+    /**
+     * @param memoryBudget Estimated bytes one fetch may hold, must be greater than 0
+     */
+    public AdaptiveFetchSize(long memoryBudget) {
+        if (memoryBudget <= 0)
+            throw new StatementException("Memory budget must be greater than 0, Actual: " + memoryBudget);
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Sets the bounds of the chosen fetch sizes, the memory budget can only lower a fetch size down to the minimum.
+     */
+    public AdaptiveFetchSize setFetchSizeRange(int minFetchSize, int maxFetchSize) {
+        if (minFetchSize <= 0 || maxFetchSize < minFetchSize)
+            throw new StatementException("Invalid fetch size range, Expected: 0 < min <= max, Actual: min " + minFetchSize + ", max " + maxFetchSize);
+        this.minFetchSize = minFetchSize;
+        this.maxFetchSize = maxFetchSize;
+        return this;
+    }
+
+    public AdaptiveFetchSize setMaxShapes(int maxShapes) {
+        if (maxShapes <= 0)
+            throw new StatementException("Max shapes must be greater than 0, Actual: " + maxShapes);
+        this.maxShapes = maxShapes;
+        return this;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @param sql              SQL string about to be executed
+     * @param defaultFetchSize Fetch size used while nothing was recorded for the SQL, 0 for the driver's default
+     * @return Fetch size for the next execution of the SQL
+     */
+    public int getFetchSize(String sql, int defaultFetchSize) {
+        Shape shape = shapes.get(sql);
+        return shape == null || shape.fetchSize == 0 ? defaultFetchSize : shape.fetchSize;
+    }
+
+    /**
+     * @return true if no row width is known for the SQL yet, so the next {@link #record(String, long, int)} should
+     * pass one
+     */
+    public boolean needsRowWidth(String sql) {
+        Shape shape = shapes.get(sql);
+        return shape == null || shape.rowWidth == 0;
+    }
+
+    /**
+     * Records the rows read from one execution of the SQL.
+     *
+     * @param sql      Executed SQL string
+     * @param rows     Number of rows read
+     * @param rowWidth Estimated bytes per row, 0 to keep the width recorded before
+     */
+    public void record(String sql, long rows, int rowWidth) {
+        if (sql == null || rows < 0)
+            return;
+        Shape shape = shapes.get(sql);
+        if (shape == null) {
+            if (shapes.size() >= maxShapes)
+                return;
+            shape = shapes.computeIfAbsent(sql, k -> new Shape());
+        }
+        shape.record(rows, rowWidth, this);
+    }
+
+    /**
+     * Estimates the bytes one row of the result occupies once fetched, from the column types and sizes.
+     * Large objects and unbounded character columns are counted at a fixed width.
+     *
+     * @throws SQLException If the metadata cannot be read
+     */
+    public static int estimateRowWidth(ResultSetMetaData metaData) throws SQLException {
+        if (metaData == null)
+            return 0;
+        long width = ROW_OVERHEAD;
+        int columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++)
+            width += COLUMN_OVERHEAD + estimateColumnWidth(metaData.getColumnType(i), metaData.getPrecision(i));
+        return (int) Math.min(width, Integer.MAX_VALUE);
+    }
+
+    private static int estimateColumnWidth(int type, int precision) {
+        switch (type) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return 2;
+            case Types.INTEGER:
+            case Types.REAL:
+                return 4;
+            case Types.BIGINT:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return 8;
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+            case Types.TIME_WITH_TIMEZONE:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return 24;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return 16 + Math.min(Math.max(precision, 0), 64) / 2;
+            case Types.CHAR:
+            case Types.NCHAR:
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+                return 24 + 2 * (precision <= 0 ? MAX_COLUMN_WIDTH : Math.min(precision, MAX_COLUMN_WIDTH));
+            case Types.BINARY:
+            case Types.VARBINARY:
+                return 16 + (precision <= 0 ? MAX_COLUMN_WIDTH : Math.min(precision, MAX_COLUMN_WIDTH));
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.LONGVARBINARY:
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.BLOB:
+            case Types.SQLXML:
+                return MAX_COLUMN_WIDTH;
+            default:
+                return 32;
+        }
+    }
+
+    /**
+     * @return Snapshot of the statistics of every tracked SQL string
+     */
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, Shape> entry : shapes.entrySet())
+            stats.put(entry.getKey(), entry.getValue().stats());
+        return stats;
+    }
+
+    /**
+     * @return Statistics of the SQL string, null if it is not tracked
+     */
+    public Stats getStats(String sql) {
+        Shape shape = shapes.get(sql);
+        return shape == null ? null : shape.stats();
+    }
+
+    /**
+     * Forgets everything recorded, every SQL string falls back to the configured fetch size.
+     */
+    public void clear() {
+        shapes.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveFetchSize{shapes=" + shapes.size() + ", memoryBudget=" + memoryBudget + ", minFetchSize=" + minFetchSize +
+                ", maxFetchSize=" + maxFetchSize + "}";
+    }
+
+    private int choose(double averageRows, int rowWidth) {
+        long rows = (long) Math.ceil(averageRows) + 1;
+        if (rowWidth > 0)
+            rows = Math.min(rows, memoryBudget / rowWidth);
+        return (int) Math.max(minFetchSize, Math.min(rows, maxFetchSize));
+    }
+
+    private static final class Shape {
+        long executions;
+        long lastRowCount;
+        double averageRowCount;
+        int rowWidth;
+        volatile int fetchSize;
+
+        synchronized void record(long rows, int width, AdaptiveFetchSize owner) {
+            averageRowCount = executions == 0 ? rows : averageRowCount + (rows - averageRowCount) / 4;
+            executions++;
+            lastRowCount = rows;
+            if (width > 0)
+                rowWidth = width;
+            fetchSize = owner.choose(averageRowCount, rowWidth);
+        }
+
+        synchronized Stats stats() {
+            return new Stats(executions, lastRowCount, averageRowCount, rowWidth, fetchSize);
+        }
+    }
+
+    /**
+     * What was recorded for a SQL string and the fetch size chosen from it.
+     */
+    public static final class Stats {
+        private final long executions;
+        private final long lastRowCount;
+        private final double averageRowCount;
+        private final int rowWidth;
+        private final int fetchSize;
+
+        Stats(long executions, long lastRowCount, double averageRowCount, int rowWidth, int fetchSize) {
+            this.executions = executions;
+            this.lastRowCount = lastRowCount;
+            this.averageRowCount = averageRowCount;
+            this.rowWidth = rowWidth;
+            this.fetchSize = fetchSize;
+        }
+
+        public long getExecutions() {
+            return executions;
+        }
+
+        public long getLastRowCount() {
+            return lastRowCount;
+        }
+
+        /**
+         * @return Exponential moving average of the row counts
+         */
+        public double getAverageRowCount() {
+            return averageRowCount;
+        }
+
+        /**
+         * @return Estimated bytes per row, 0 if unknown
+         */
+        public int getRowWidth() {
+            return rowWidth;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{executions=" + executions + ", lastRowCount=" + lastRowCount + ", averageRowCount=" + averageRowCount +
+                    ", rowWidth=" + rowWidth + ", fetchSize=" + fetchSize + "}";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default executor of the asynchronous statement methods.
+ * <p>
+ * JDBC calls block, so the default is a cached pool of daemon threads rather than the common fork-join pool.
+ * On Java 21 and later the multi-release jar replaces this class with one that starts a virtual thread per task.
+ *
+ * @author Maxwell Nie
+ */
+public final class AsyncExecutors {
+    private static volatile java.util.concurrent.Executor defaultExecutor;
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * @return Executor used when an asynchronous method is called without one
+     */
+    public static java.util.concurrent.Executor defaultExecutor() {
+        java.util.concurrent.Executor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (AsyncExecutors.class) {
+                executor = defaultExecutor;
+                if (executor == null)
+                    defaultExecutor = executor = createDefaultExecutor();
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Replaces the default executor, for example with an application managed pool.
+     *
+     * @param executor Executor to use, null restores the built-in default
+     */
+    public static void setDefaultExecutor(java.util.concurrent.Executor executor) {
+        defaultExecutor = executor;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "free-jdbc-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+}
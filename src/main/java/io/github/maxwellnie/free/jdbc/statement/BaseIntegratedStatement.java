@@ -14,6 +14,8 @@ public abstract class BaseIntegratedStatement<T extends Statement, I extends Int
     protected T statement;
     protected String sql;
     protected I integratedStatement;
+    protected StatementListener statementListener;
+    protected StatementTrace trace;
 
     public BaseIntegratedStatement(Connection connection) {
         this.connection = connection;
@@ -43,6 +45,59 @@ public abstract class BaseIntegratedStatement<T extends Statement, I extends Int
         return integratedStatement;
     }
 
+    /**
+     * Sets the listener notified after every execution of this wrapper, null to disable tracing.
+     * Timings are only taken while a listener is set.
+     */
+    @Override
+    public I setStatementListener(StatementListener statementListener) {
+        this.statementListener = statementListener;
+        if (statementListener != null && trace == null)
+            trace = new StatementTrace();
+        return integratedStatement;
+    }
+
+    public StatementListener getStatementListener() {
+        return statementListener;
+    }
+
+    /**
+     * @return Start time of a traced phase, 0 when no listener is set
+     */
+    protected long traceStart() {
+        return statementListener == null ? 0L : System.nanoTime();
+    }
+
+    /**
+     * Records the time elapsed since {@link #traceStart()} for the phase when a listener is set.
+     */
+    protected void traceEnd(StatementTrace.Phase phase, long startNanos) {
+        if (statementListener != null)
+            trace.record(phase, startNanos);
+    }
+
+    /**
+     * Reports a failure outside the executor, while preparing or binding, to the listener as a failed execution.
+     * The time spent in the phase until the failure is included.
+     *
+     * @return The failure, to be thrown by the caller
+     */
+    protected <E extends RuntimeException> E traceFailure(StatementTrace.Phase phase, long startNanos, E failure) {
+        if (statementListener == null)
+            return failure;
+        traceEnd(phase, startNanos);
+        try {
+            trace.start(sql);
+            trace.fail(failure);
+            statementListener.onExecution(trace);
+        } catch (RuntimeException listenerException) {
+            failure.addSuppressed(listenerException);
+        } finally {
+            trace.reset();
+        }
+        return failure;
+    }
+
     protected void validateStatement() throws StatementException {
         if (statement == null)
             throw new StatementException("Statement is null, Expected: initialized statement object, Actual: null statement");
@@ -60,25 +115,77 @@ public abstract class BaseIntegratedStatement<T extends Statement, I extends Int
             throw new StatementException("Connection is null, Expected: active database connection, Actual: null connection");
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public <P, R> R execute(Executor<? super T, P> executor, ResultParser<T, P, R> resultParser) throws SqlExecutionException, ResultParserException {
         validateStatement();
+        if (statementListener == null)
+            return doExecute(executor, resultParser);
+        StatementListener listener = statementListener;
+        R result;
+        try {
+            trace.start(sql);
+            result = doExecute(executor, resultParser);
+            if (resultParser != null)
+                trace.parsed(result);
+        } catch (RuntimeException e) {
+            trace.fail(e);
+            try {
+                listener.onExecution(trace);
+            } catch (RuntimeException listenerException) {
+                e.addSuppressed(listenerException);
+            } finally {
+                trace.reset();
+            }
+            throw e;
+        }
+        try {
+            listener.onExecution(trace);
+        } finally {
+            trace.reset();
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <P, R> R doExecute(Executor<? super T, P> executor, ResultParser<T, P, R> resultParser) throws SqlExecutionException, ResultParserException {
         if (executor == null) {
             if (resultParser == null)
                 throw new SqlExecutionException("Executor and Result parser is null, Expected: at least one of executor or result parser to be non-null, Actual: both are null");
-            if (defaultExecute())
-                return resultParser.parse(statement, null);
+            long start = traceStart();
+            boolean hasResultSet;
+            try {
+                hasResultSet = defaultExecute();
+            } finally {
+                traceEnd(StatementTrace.Phase.EXECUTE, start);
+            }
+            if (hasResultSet)
+                return parse(resultParser, null);
             else
                 throw new ResultParserException("Cannot parse result for update operation, Expected: query operation that returns result set, Actual: update operation with no result set");
         } else {
+            P executionResult;
+            long start = traceStart();
             try {
-                if (resultParser == null)
-                    return (R) executor.execute(statement, sql);
-                return resultParser.parse(statement, executor.execute(statement, sql));
+                executionResult = executor.execute(statement, sql);
             } catch (SQLException e) {
                 throw new SqlExecutionException("Statement execution failed for SQL: " + sql + ", Error: " + e.getMessage(), e);
+            } finally {
+                traceEnd(StatementTrace.Phase.EXECUTE, start);
             }
+            if (statementListener != null)
+                trace.result(executionResult);
+            if (resultParser == null)
+                return (R) executionResult;
+            return parse(resultParser, executionResult);
+        }
+    }
+
+    private <P, R> R parse(ResultParser<T, P, R> resultParser, P executionResult) throws ResultParserException {
+        long start = traceStart();
+        try {
+            return resultParser.parse(statement, executionResult);
+        } finally {
+            traceEnd(StatementTrace.Phase.PARSE, start);
         }
     }
 
@@ -94,10 +201,16 @@ public abstract class BaseIntegratedStatement<T extends Statement, I extends Int
     public <P> I parameterize(ParametersHandler<? super T, P> parametersHandler, P parameters) throws StatementException {
         validateStatement();
         if (parametersHandler != null) {
+            long start = traceStart();
             try {
+                if (statementListener != null)
+                    trace.parameters(parameters);
                 parametersHandler.parameterize(statement, parameters);
+                traceEnd(StatementTrace.Phase.BIND, start);
             } catch (SQLException e) {
-                throw new StatementException("Statement parameterization failed for SQL: " + sql + ", Error: " + e.getMessage() + ", Expected: valid parameter binding", e);
+                throw traceFailure(StatementTrace.Phase.BIND, start, new StatementException("Statement parameterization failed for SQL: " + sql + ", Error: " + e.getMessage() + ", Expected: valid parameter binding", e));
+            } catch (RuntimeException e) {
+                throw traceFailure(StatementTrace.Phase.BIND, start, e);
             }
         }
         return integratedStatement;
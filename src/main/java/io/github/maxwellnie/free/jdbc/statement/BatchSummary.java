@@ -0,0 +1,114 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact outcome of a large batch: the total number of affected rows, the number of rows the driver reported as
+ * {@link Statement#SUCCESS_NO_INFO} and the positions of the failed rows, without one update count slot per row.
+ * The per-row update counts are only kept when they are requested.
+ *
+ * @author Maxwell Nie
+ * @see PreparedIntegratedStatement#executeLargeBatch(io.github.maxwellnie.free.jdbc.batch.BatchSql, int, boolean)
+ */
+public final class BatchSummary {
+    private final BitSet failedRows = new BitSet();
+    private long[] updateCounts;
+    private int rowCount;
+    private long affectedRows;
+    private int successNoInfoCount;
+    private BatchUpdateException failure;
+
+    BatchSummary(boolean keepUpdateCounts) {
+        if (keepUpdateCounts)
+            updateCounts = new long[16];
+    }
+
+    /**
+     * Adds the update counts of the next rows. Rows missing from counts, because the driver stopped at a
+     * failed row, are counted as failed.
+     */
+    void add(long[] counts, int rows) {
+        if (updateCounts != null && updateCounts.length < rowCount + rows)
+            updateCounts = Arrays.copyOf(updateCounts, Math.max(updateCounts.length << 1, rowCount + rows));
+        for (int i = 0; i < rows; i++) {
+            long count = i < counts.length ? counts[i] : Statement.EXECUTE_FAILED;
+            if (count >= 0)
+                affectedRows += count;
+            else if (count == Statement.SUCCESS_NO_INFO)
+                successNoInfoCount++;
+            else
+                failedRows.set(rowCount + i);
+            if (updateCounts != null)
+                updateCounts[rowCount + i] = count;
+        }
+        rowCount += rows;
+    }
+
+    void fail(BatchUpdateException e) {
+        if (failure == null)
+            failure = e;
+        else if (failure != e)
+            failure.addSuppressed(e);
+    }
+
+    /**
+     * @return Number of rows executed or attempted
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return Sum of the update counts of the successful rows
+     */
+    public long getAffectedRows() {
+        return affectedRows;
+    }
+
+    /**
+     * @return Number of rows that succeeded without a known update count
+     */
+    public int getSuccessNoInfoCount() {
+        return successNoInfoCount;
+    }
+
+    public int getFailedCount() {
+        return failedRows.cardinality();
+    }
+
+    /**
+     * @return Positions of the failed rows, including the rows a driver skipped after a failure. The set is a copy.
+     */
+    public BitSet getFailedRows() {
+        return (BitSet) failedRows.clone();
+    }
+
+    public boolean isSuccessful() {
+        return failedRows.isEmpty();
+    }
+
+    /**
+     * @return First batch failure reported by the driver, later ones are suppressed by it; null if no row failed
+     */
+    public BatchUpdateException getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return Update count of every row, null unless the counts were requested
+     */
+    public long[] getUpdateCounts() {
+        if (updateCounts == null)
+            return null;
+        return updateCounts.length == rowCount ? updateCounts : (updateCounts = Arrays.copyOf(updateCounts, rowCount));
+    }
+
+    @Override
+    public String toString() {
+        return "BatchSummary{rows=" + rowCount + ", affectedRows=" + affectedRows + ", successNoInfo=" + successNoInfoCount +
+                ", failed=" + failedRows.cardinality() + "}";
+    }
+}
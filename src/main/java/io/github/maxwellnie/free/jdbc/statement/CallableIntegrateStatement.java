@@ -1,5 +1,10 @@
 package io.github.maxwellnie.free.jdbc.statement;
 
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.callable.CallableBatchSql;
+import io.github.maxwellnie.free.jdbc.callable.CallableOutValues;
+import io.github.maxwellnie.free.jdbc.callable.CallablePlan;
 import io.github.maxwellnie.free.jdbc.callable.CallableSql;
 
 import java.sql.CallableStatement;
@@ -10,6 +15,11 @@ import java.sql.SQLException;
  * @author Maxwell Nie
  */
 public class CallableIntegrateStatement extends BaseIntegratedStatement<CallableStatement, CallableIntegrateStatement> {
+    /**
+     * Plan whose OUT parameters are registered on {@link #registeredStatement}.
+     */
+    private CallablePlan registeredPlan;
+    private CallableStatement registeredStatement;
 
     public CallableIntegrateStatement(Connection connection) {
         super(connection);
@@ -18,6 +28,7 @@ public class CallableIntegrateStatement extends BaseIntegratedStatement<Callable
 
     @Override
     public CallableIntegrateStatement createStatement(String sql) throws StatementException {
+        long start = traceStart();
         this.sql = sql;
         validateConnection();
         validateSql();
@@ -29,9 +40,10 @@ public class CallableIntegrateStatement extends BaseIntegratedStatement<Callable
                 statement = connection.prepareCall(sql);
             applyConfiguration();
         } catch (SQLException e) {
-            throw new StatementException("Callable statement creation failed for SQL: " + sql + ", Error: " + e.getMessage() +
-                    ", Expected: successful callable statement creation, Actual: SQLException during creation", e);
+            throw traceFailure(StatementTrace.Phase.PREPARE, start, new StatementException("Callable statement creation failed for SQL: " + sql + ", Error: " + e.getMessage() +
+                    ", Expected: successful callable statement creation, Actual: SQLException during creation", e));
         }
+        traceEnd(StatementTrace.Phase.PREPARE, start);
         return integratedStatement;
     }
 
@@ -63,4 +75,110 @@ public class CallableIntegrateStatement extends BaseIntegratedStatement<Callable
         return execute(Executor.PREPARED_STATEMENT_EXECUTE_EXECUTOR, resultParser);
     }
 
+    /**
+     * Executes a compiled callable plan and reads its OUT values.
+     *
+     * @param plan   Compiled callable plan
+     * @param values One value per parameter, the values at OUT positions are ignored
+     * @return OUT values of the execution
+     * @throws SqlExecutionException if an error occurs during execution
+     * @throws ResultParserException if an OUT value cannot be read
+     * @see #execute(CallablePlan, Object[], ResultParser)
+     */
+    public CallableOutValues execute(CallablePlan plan, Object[] values) throws SqlExecutionException, ResultParserException {
+        if (plan == null)
+            throw new SqlExecutionException("Callable plan cannot be null");
+        return execute(plan, values, plan.getOutValuesParser());
+    }
+
+    /**
+     * Executes a compiled callable plan. The OUT parameters are registered only on the first execution of the plan
+     * with the current statement, later executions only bind the IN values.
+     *
+     * @param plan         Compiled callable plan
+     * @param values       One value per parameter, the values at OUT positions are ignored
+     * @param resultParser Result parser
+     * @return Parsed result
+     * @throws SqlExecutionException if an error occurs during execution
+     * @throws ResultParserException if an error occurs during result parsing
+     */
+    public <R> R execute(CallablePlan plan, Object[] values, ResultParser<CallableStatement, Boolean, R> resultParser) throws SqlExecutionException, ResultParserException {
+        if (plan == null)
+            throw new SqlExecutionException("Callable plan cannot be null");
+        plan.validate(values);
+        preparePlan(plan);
+        if (registeredPlan != plan || registeredStatement != statement) {
+            try {
+                plan.registerOutParameters(statement);
+            } catch (SQLException e) {
+                throw new StatementException("OUT parameter registration failed for SQL: " + sql + ", Error: " + e.getMessage() +
+                        ", Expected: valid parameter registration", e);
+            }
+            registeredPlan = plan;
+            registeredStatement = statement;
+        }
+        parameterize(plan.getParametersHandler(), values);
+        return execute(Executor.PREPARED_STATEMENT_EXECUTE_EXECUTOR, resultParser);
+    }
+
+    /**
+     * Makes the statement of the plan current, closing the statement of another SQL.
+     */
+    private void preparePlan(CallablePlan plan) {
+        if (statement != null) {
+            if (plan.getSql().equals(sql))
+                return;
+            close();
+        }
+        createStatement(plan.getSql());
+    }
+
+    /**
+     * Calls the procedure of the plan once per row in a single batch.
+     *
+     * @param plan Compiled callable plan without OUT parameters
+     * @param rows One value array per call, holding one value per parameter
+     * @return Update counts of the calls in row order
+     * @throws SqlBuildException     if the plan has OUT parameters
+     * @throws SqlExecutionException if an error occurs during execution
+     */
+    public int[] executeBatch(CallablePlan plan, Iterable<Object[]> rows) throws SqlExecutionException {
+        CallableBatchSql batchSql = new CallableBatchSql(plan, rows);
+        preparePlan(plan);
+        parameterize(BatchSql.BATCH_SQL_PARAMETERS_HANDLER, batchSql);
+        return execute(Executor.PREPARED_STATEMENT_BATCH_EXECUTOR);
+    }
+
+    /**
+     * Calls the procedure of the plan once per row, sending the calls in chunks of chunkSize rows.
+     * Rows are bound while they are sent, so an iterable that is not a list is never held in memory.
+     *
+     * @param plan      Compiled callable plan without OUT parameters
+     * @param rows      One value array per call, holding one value per parameter
+     * @param chunkSize Maximum number of calls sent with one executeBatch call, must be greater than 0
+     * @return Update counts of the calls of all chunks in row order
+     * @throws SqlBuildException     if the plan has OUT parameters
+     * @throws SqlExecutionException if an error occurs during execution
+     */
+    public int[] executeBatch(CallablePlan plan, Iterable<Object[]> rows, int chunkSize) throws SqlExecutionException {
+        CallableBatchSql batchSql = new CallableBatchSql(plan, rows);
+        if (chunkSize <= 0)
+            throw new SqlExecutionException("Chunk size must be greater than 0, Actual: " + chunkSize);
+        preparePlan(plan);
+        if (statementListener != null)
+            trace.parameters(batchSql);
+        return execute(Executor.preparedStatementChunkedBatchExecutor(batchSql, chunkSize));
+    }
+
+    /**
+     * Calls the procedure of the callable SQL once per row, sending the calls in chunks of chunkSize rows.
+     *
+     * @param callableSql Callable SQL giving the shape of the calls, without OUT parameters
+     * @see #executeBatch(CallablePlan, Iterable, int)
+     */
+    public int[] executeBatch(CallableSql callableSql, Iterable<Object[]> rows, int chunkSize) throws SqlExecutionException {
+        if (callableSql == null)
+            throw new SqlExecutionException("CallableSql cannot be null");
+        return executeBatch(CallablePlan.compile(callableSql), rows, chunkSize);
+    }
 }
\ No newline at end of file
@@ -1,8 +1,14 @@
 package io.github.maxwellnie.free.jdbc.statement;
 
+import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.script.SqlScriptReader;
+
+import java.sql.BatchUpdateException;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 
 /**
  * Statement executor functional interface
@@ -46,10 +52,199 @@ public interface Executor<T extends Statement, R> {
 
     Executor<PreparedStatement, Boolean> PREPARED_STATEMENT_EXECUTE_EXECUTOR = (statement, sql) -> statement.execute();
 
+    /**
+     * Prepared statement query executor
+     * Returns the open result set, which the caller is responsible for closing
+     */
+    Executor<PreparedStatement, ResultSet> PREPARED_STATEMENT_QUERY_EXECUTOR = (statement, sql) -> statement.executeQuery();
+
     Executor<PreparedStatement, Integer> PREPARED_STATEMENT_UPDATE_EXECUTOR = (statement, sql) -> statement.executeUpdate();
     Executor<Statement, Integer> STATEMENT_UPDATE_EXECUTOR = Statement::executeUpdate;
     Executor<Statement, Boolean> STATEMENT_EXECUTE_EXECUTOR = Statement::execute;
 
+    /**
+     * Creates a prepared statement batch executor that binds the rows of the batch SQL itself and
+     * flushes them every chunkSize rows, so the driver never buffers more than one chunk.
+     * The same statement is reused for every chunk and its batch is cleared between chunks.
+     * Rows are pulled from {@link BatchSql#openRowCursor()}, so a {@link io.github.maxwellnie.free.jdbc.batch.StreamingBatchSql}
+     * is never held in memory beyond the current chunk.
+     * <p>
+     * When a chunk fails, the {@link BatchUpdateException} thrown holds the update counts of the rows of the previous
+     * chunks followed by those the driver reported for the failed chunk, and the rows still queued are cleared.
+     *
+     * @param batchSql  Batch SQL whose rows are bound and executed
+     * @param chunkSize Maximum number of rows sent with one executeBatch call, must be greater than 0
+     * @return Executor returning the update counts of all chunks merged in row order
+     */
+    static Executor<PreparedStatement, int[]> preparedStatementChunkedBatchExecutor(BatchSql batchSql, int chunkSize) {
+        if (chunkSize <= 0)
+            throw new SqlExecutionException("Chunk size must be greater than 0, Actual: " + chunkSize);
+        return (statement, sql) -> {
+            BatchSql.RowCursor cursor = batchSql.openRowCursor();
+            int[] result = new int[Math.min(chunkSize, 16)];
+            int flushed = 0;
+            int pending = 0;
+            boolean more = true;
+            try {
+                while (more) {
+                    more = cursor.bindNext(statement);
+                    if (more) {
+                        statement.addBatch();
+                        pending++;
+                    }
+                    if (pending == chunkSize || (!more && pending > 0)) {
+                        int[] chunkResult;
+                        try {
+                            chunkResult = statement.executeBatch();
+                        } catch (BatchUpdateException e) {
+                            throw StatementUtils.chunkFailure(e, result, flushed);
+                        }
+                        statement.clearBatch();
+                        if (result.length < flushed + pending)
+                            result = Arrays.copyOf(result, Math.max(result.length << 1, flushed + pending));
+                        System.arraycopy(chunkResult, 0, result, flushed, Math.min(chunkResult.length, pending));
+                        flushed += pending;
+                        pending = 0;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (pending > 0)
+                    StatementUtils.clearBatch(statement, e);
+                throw e;
+            }
+            return result.length == flushed ? result : Arrays.copyOf(result, flushed);
+        };
+    }
+
+    /**
+     * Creates a prepared statement batch executor that flushes the rows of the batch SQL every chunkSize rows with
+     * executeLargeBatch, or executeBatch when the driver does not implement it, and folds the update counts of every
+     * chunk into a {@link BatchSummary}.
+     * A chunk failing with a {@link BatchUpdateException} is recorded in the summary and execution goes on with
+     * the next chunk; rows the driver did not process after the failure are counted as failed.
+     *
+     * @param batchSql         Batch SQL whose rows are bound and executed
+     * @param chunkSize        Maximum number of rows sent with one executeLargeBatch call, must be greater than 0
+     * @param keepUpdateCounts true to keep the update count of every row in the summary
+     * @return Executor returning the summary of all chunks
+     */
+    static Executor<PreparedStatement, BatchSummary> preparedStatementLargeBatchSummaryExecutor(BatchSql batchSql, int chunkSize, boolean keepUpdateCounts) {
+        if (chunkSize <= 0)
+            throw new SqlExecutionException("Chunk size must be greater than 0, Actual: " + chunkSize);
+        return (statement, sql) -> {
+            BatchSql.RowCursor cursor = batchSql.openRowCursor();
+            BatchSummary summary = new BatchSummary(keepUpdateCounts);
+            int pending = 0;
+            boolean more = true;
+            while (more) {
+                more = cursor.bindNext(statement);
+                if (more) {
+                    statement.addBatch();
+                    pending++;
+                }
+                if (pending == chunkSize || (!more && pending > 0)) {
+                    long[] chunkResult;
+                    try {
+                        chunkResult = StatementUtils.executeLargeBatch(statement);
+                    } catch (BatchUpdateException e) {
+                        summary.fail(e);
+                        chunkResult = e.getLargeUpdateCounts() != null ? e.getLargeUpdateCounts() : new long[0];
+                    }
+                    statement.clearBatch();
+                    summary.add(chunkResult, pending);
+                    pending = 0;
+                }
+            }
+            return summary;
+        };
+    }
+
+    /**
+     * Creates a prepared statement batch executor that flushes the rows of the batch SQL every chunkSize rows with
+     * executeLargeBatch, or executeBatch when the driver does not implement it, and passes the keys generated by every
+     * chunk to the consumer before the next chunk is bound.
+     * The statement must have been prepared to return generated keys.
+     *
+     * @param batchSql    Batch SQL whose rows are bound and executed
+     * @param chunkSize   Maximum number of rows sent with one executeLargeBatch call, must be greater than 0
+     * @param keyConsumer Consumer of the numeric keys of the first key column
+     * @return Executor returning the summary of all chunks
+     */
+    static Executor<PreparedStatement, BatchSummary> preparedStatementChunkedBatchKeysExecutor(BatchSql batchSql, int chunkSize, GeneratedKeys.LongKeyConsumer keyConsumer) {
+        if (chunkSize <= 0)
+            throw new SqlExecutionException("Chunk size must be greater than 0, Actual: " + chunkSize);
+        return (statement, sql) -> {
+            BatchSql.RowCursor cursor = batchSql.openRowCursor();
+            BatchSummary summary = new BatchSummary(false);
+            long keyCount = 0;
+            int pending = 0;
+            boolean more = true;
+            while (more) {
+                more = cursor.bindNext(statement);
+                if (more) {
+                    statement.addBatch();
+                    pending++;
+                }
+                if (pending == chunkSize || (!more && pending > 0)) {
+                    long[] chunkResult = StatementUtils.executeLargeBatch(statement);
+                    keyCount += GeneratedKeys.forEachLong(statement, keyCount, keyConsumer);
+                    statement.clearBatch();
+                    summary.add(chunkResult, pending);
+                    pending = 0;
+                }
+            }
+            return summary;
+        };
+    }
+
+    /**
+     * Creates a statement batch executor that reads the statements of a script and flushes them every chunkSize
+     * statements, so neither the script nor more than one chunk of it is held in memory. A failing chunk is reported
+     * like in {@link #preparedStatementChunkedBatchExecutor(BatchSql, int)}.
+     *
+     * @param script    Reader of the script statements
+     * @param chunkSize Maximum number of statements sent with one executeBatch call, must be greater than 0
+     * @return Executor returning the update counts of all chunks merged in statement order
+     */
+    static Executor<Statement, int[]> statementScriptExecutor(SqlScriptReader script, int chunkSize) {
+        if (chunkSize <= 0)
+            throw new SqlExecutionException("Chunk size must be greater than 0, Actual: " + chunkSize);
+        return (statement, sql) -> {
+            int[] result = new int[Math.min(chunkSize, 16)];
+            int flushed = 0;
+            int pending = 0;
+            boolean more = true;
+            try {
+                while (more) {
+                    more = script.hasNext();
+                    if (more) {
+                        statement.addBatch(script.next());
+                        pending++;
+                    }
+                    if (pending == chunkSize || (!more && pending > 0)) {
+                        int[] chunkResult;
+                        try {
+                            chunkResult = statement.executeBatch();
+                        } catch (BatchUpdateException e) {
+                            throw StatementUtils.chunkFailure(e, result, flushed);
+                        }
+                        statement.clearBatch();
+                        if (result.length < flushed + pending)
+                            result = Arrays.copyOf(result, Math.max(result.length << 1, flushed + pending));
+                        System.arraycopy(chunkResult, 0, result, flushed, Math.min(chunkResult.length, pending));
+                        flushed += pending;
+                        pending = 0;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (pending > 0)
+                    StatementUtils.clearBatch(statement, e);
+                throw e;
+            }
+            return result.length == flushed ? result : Arrays.copyOf(result, flushed);
+        };
+    }
+
     /**
      * Executes Statement and returns result
      *
@@ -0,0 +1,106 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Readers of the keys generated by the last execution of a statement, see {@link Statement#getGeneratedKeys()}.
+ * Numeric keys are read from the first key column into a primitive array without boxing.
+ *
+ * @author Maxwell Nie
+ */
+public final class GeneratedKeys {
+    private static final long[] NO_KEYS = new long[0];
+
+    private GeneratedKeys() {
+    }
+
+    /**
+     * @return Result parser reading the generated keys of the statement as longs
+     */
+    public static <P> ResultParser<PreparedStatement, P, long[]> longParser() {
+        return (statement, executionResult) -> {
+            try {
+                return readLongs(statement);
+            } catch (SQLException e) {
+                throw new ResultParserException("Generated keys reading failed, Error: " + e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * @param rowMapper Row mapper applied to each generated key row
+     * @return Result parser mapping the generated keys of the statement, for keys that are not numeric or span several columns
+     */
+    public static <P, K> ResultParser<PreparedStatement, P, List<K>> parser(RowMapper<K> rowMapper) {
+        if (rowMapper == null)
+            throw new ResultParserException("Row mapper cannot be null");
+        return (statement, executionResult) -> {
+            try {
+                return read(statement, rowMapper);
+            } catch (SQLException e) {
+                throw new ResultParserException("Generated keys mapping failed, Error: " + e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * @return Keys of the first key column, in the order the driver returned them
+     */
+    public static long[] readLongs(Statement statement) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            if (keys == null)
+                return NO_KEYS;
+            long[] values = new long[8];
+            int count = 0;
+            while (keys.next()) {
+                if (count == values.length)
+                    values = Arrays.copyOf(values, count << 1);
+                values[count++] = keys.getLong(1);
+            }
+            return count == 0 ? NO_KEYS : Arrays.copyOf(values, count);
+        }
+    }
+
+    public static <K> List<K> read(Statement statement, RowMapper<K> rowMapper) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            List<K> values = new ArrayList<>();
+            if (keys == null)
+                return values;
+            while (keys.next())
+                values.add(rowMapper.mapRow(keys, values.size()));
+            return values;
+        }
+    }
+
+    /**
+     * Passes the keys of the first key column to the consumer.
+     *
+     * @param offset Index of the first key, the number of keys passed before
+     * @return Number of keys passed
+     */
+    public static int forEachLong(Statement statement, long offset, LongKeyConsumer consumer) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            if (keys == null)
+                return 0;
+            int count = 0;
+            while (keys.next())
+                consumer.accept(offset + count++, keys.getLong(1));
+            return count;
+        }
+    }
+
+    /**
+     * Consumer of generated keys, called with the key and its index among all keys of the execution.
+     * When every row generates one key, the index is the row index.
+     */
+    @FunctionalInterface
+    public interface LongKeyConsumer {
+        void accept(long index, long key) throws SQLException;
+    }
+}
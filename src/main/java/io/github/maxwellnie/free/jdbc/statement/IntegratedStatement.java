@@ -1,9 +1,12 @@
 package io.github.maxwellnie.free.jdbc.statement;
 
 
+import io.github.maxwellnie.free.jdbc.script.SqlScript;
+
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Integrated SQL statement execution interface, unifying the handling of various types of Statement operations
@@ -18,19 +21,15 @@ public interface IntegratedStatement<T extends Statement, I extends IntegratedSt
 
     /**
      * Adds multiple SQL statements to the batch queue
-     * Splits the input SQL string by semicolons and adds each non-empty SQL statement to the batch
+     * Splits the input SQL string with {@link SqlScript}, which ignores semicolons inside literals, comments and
+     * procedure bodies, and adds each non-empty SQL statement to the batch. The split is cached per script.
      *
      * @param statement   Statement object to add batch to
      * @param multipleSql String containing one or more SQL statements separated by semicolons
      * @throws SQLException If SQL statement is empty or database operation fails
      */
     static void addBatchSql(Statement statement, String multipleSql) throws SQLException {
-        for (String singleSql : multipleSql.split(";")) {
-            String trimmedSql = singleSql.trim();
-            if (trimmedSql.isEmpty())
-                continue;
-            statement.addBatch(trimmedSql);
-        }
+        SqlScript.of(multipleSql).addBatch(statement);
     }
 
     /**
@@ -57,6 +56,18 @@ public interface IntegratedStatement<T extends Statement, I extends IntegratedSt
      */
     I setConfiguration(Configuration configuration);
 
+    /**
+     * Sets the listener notified with the timings and counts of every execution.
+     * The default implementation does not trace and ignores the listener.
+     *
+     * @param statementListener Listener to notify, null to disable tracing
+     * @return Current integrated Statement instance, supporting method chaining
+     */
+    @SuppressWarnings("unchecked")
+    default I setStatementListener(StatementListener statementListener) {
+        return (I) this;
+    }
+
     /**
      * Parameterizes the Statement object with the specified parameters
      *
@@ -99,6 +110,20 @@ public interface IntegratedStatement<T extends Statement, I extends IntegratedSt
         return execute(null, resultParser);
     }
 
+    /**
+     * Executes SQL statement asynchronously on the given executor.
+     * The integrated statement must not be used by other threads until the returned future completes.
+     *
+     * @param executor      Executor defining the specific execution logic.
+     * @param resultParser  Result parser for parsing execution results.
+     * @param asyncExecutor Executor running the execution, {@link AsyncExecutors#defaultExecutor()} if null
+     * @return Future completed with the result of {@link #execute(Executor, ResultParser)}, or exceptionally with its exception
+     * @see #execute(Executor, ResultParser)
+     */
+    default <P, R> CompletableFuture<R> executeAsync(Executor<? super T, P> executor, ResultParser<T, P, R> resultParser, java.util.concurrent.Executor asyncExecutor) {
+        return CompletableFuture.supplyAsync(() -> execute(executor, resultParser), asyncExecutor == null ? AsyncExecutors.defaultExecutor() : asyncExecutor);
+    }
+
     /**
      * Processes the Statement object using the specified handler
      *
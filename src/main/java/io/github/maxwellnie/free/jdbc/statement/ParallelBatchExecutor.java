@@ -0,0 +1,304 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.batch.BatchSqlBuilder;
+
+import javax.sql.DataSource;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executes the rows of one {@link BatchSql} concurrently on several connections.
+ * <p>
+ * The rows are split into contiguous shards, and every shard runs on its own connection with its own
+ * {@link PreparedIntegratedStatement} inside its own transaction. The update counts are merged back in the
+ * original row order. The {@link FailurePolicy} decides what happens to the other shards when one fails.
+ * <pre><code>
+ *   int[] counts = new ParallelBatchExecutor(dataSource, 4)
+ *           .setChunkSize(1000)
+ *           .setFailurePolicy(ParallelBatchExecutor.FailurePolicy.ROLLBACK_ALL)
+ *           .execute(batchSql);
+ * </code></pre>
+ * The batch SQL must keep its rows in memory, a {@link io.github.maxwellnie.free.jdbc.batch.StreamingBatchSql}
+ * cannot be split.
+ * <p>
+ * Every shard holds its connection until all shards have finished, so the connection supplier must be able to hand
+ * out as many connections at once as there are shards. A pool smaller than the shard count blocks the shards waiting
+ * for a connection forever, or until the pool's borrow timeout fails them.
+ *
+ * @author Maxwell Nie
+ */
+public class ParallelBatchExecutor {
+    private final ConnectionSupplier connectionSupplier;
+    private final int shards;
+    private java.util.concurrent.Executor executor;
+    private FailurePolicy failurePolicy = FailurePolicy.ROLLBACK_ALL;
+    private Configuration configuration;
+    private int chunkSize;
+    private StatementListener statementListener;
+
+    /**
+     * @param dataSource Data source providing one connection per shard
+     * @param shards     Maximum number of shards, must be greater than 0
+     */
+    public ParallelBatchExecutor(DataSource dataSource, int shards) {
+        this(dataSource == null ? null : (ConnectionSupplier) dataSource::getConnection, shards);
+    }
+
+    /**
+     * @param connectionSupplier Supplier providing one connection per shard
+     * @param shards             Maximum number of shards, must be greater than 0
+     */
+    public ParallelBatchExecutor(ConnectionSupplier connectionSupplier, int shards) {
+        if (connectionSupplier == null)
+            throw new SqlExecutionException("Connection supplier cannot be null");
+        if (shards <= 0)
+            throw new SqlExecutionException("Shard count must be greater than 0, Actual: " + shards);
+        this.connectionSupplier = connectionSupplier;
+        this.shards = shards;
+    }
+
+    /**
+     * Sets the executor running the shards. When none is set, every execution starts one thread per shard.
+     */
+    public ParallelBatchExecutor setExecutor(java.util.concurrent.Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public ParallelBatchExecutor setFailurePolicy(FailurePolicy failurePolicy) {
+        if (failurePolicy == null)
+            throw new SqlExecutionException("Failure policy cannot be null");
+        this.failurePolicy = failurePolicy;
+        return this;
+    }
+
+    public ParallelBatchExecutor setConfiguration(Configuration configuration) {
+        this.configuration = configuration;
+        return this;
+    }
+
+    /**
+     * Sets the number of rows each shard sends per executeBatch call, 0 sends a whole shard at once.
+     */
+    public ParallelBatchExecutor setChunkSize(int chunkSize) {
+        if (chunkSize < 0)
+            throw new SqlExecutionException("Chunk size cannot be negative, Actual: " + chunkSize);
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Sets the listener notified after the execution of every shard.
+     * It is called concurrently from the shard threads.
+     */
+    public ParallelBatchExecutor setStatementListener(StatementListener statementListener) {
+        this.statementListener = statementListener;
+        return this;
+    }
+
+    /**
+     * Executes the batch SQL across the shards and waits for all of them.
+     *
+     * @param batchSql Batch SQL to execute, holding its rows in memory
+     * @return Update counts of all rows in their original order
+     * @throws SqlExecutionException if the rows are not held in memory, such as those of a
+     *                               {@link io.github.maxwellnie.free.jdbc.batch.StreamingBatchSql}, or a shard fails. Under {@link FailurePolicy#COMMIT_PER_SHARD} the cause is a
+     *                               {@link BatchUpdateException} whose update counts hold the rows of the committed
+     *                               shards and {@link Statement#EXECUTE_FAILED} for the rows of the failed ones
+     */
+    public int[] execute(BatchSql batchSql) throws SqlExecutionException {
+        if (batchSql == null)
+            throw new SqlExecutionException("Batch SQL cannot be null");
+        List<List<Object>> rows;
+        try {
+            rows = batchSql.getParamsLists();
+        } catch (UnsupportedOperationException e) {
+            throw new SqlExecutionException("Parallel batch requires the batch rows in memory, SQL: " + batchSql.getSqlString(), e);
+        }
+        int rowCount = rows.size();
+        if (rowCount == 0)
+            return new int[0];
+        int shardCount = Math.max(1, Math.min(shards, rowCount));
+        java.util.concurrent.Executor shardExecutor = executor;
+        ExecutorService ownedExecutor = null;
+        if (shardExecutor == null)
+            shardExecutor = ownedExecutor = Executors.newFixedThreadPool(shardCount);
+        try {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            CompletableFuture<Shard>[] futures = new CompletableFuture[shardCount];
+            int started = 0;
+            try {
+                for (int i = 0; i < shardCount; i++) {
+                    Shard shard = new Shard(batchSql.getSqlString(), rows, (int) ((long) rowCount * i / shardCount), (int) ((long) rowCount * (i + 1) / shardCount));
+                    futures[i] = CompletableFuture.supplyAsync(shard::run, shardExecutor);
+                    started++;
+                }
+            } catch (RuntimeException e) {
+                abort(futures, started, e);
+                throw new SqlExecutionException("Parallel batch execution failed, Error: shard " + (started + 1) + " of " + shardCount +
+                        " could not be submitted: " + e.getMessage(), e);
+            }
+            Shard[] results = new Shard[shardCount];
+            for (int i = 0; i < shardCount; i++)
+                results[i] = futures[i].join();
+            return complete(results, rowCount);
+        } finally {
+            if (ownedExecutor != null)
+                ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Waits for the shards already submitted, then rolls them back and releases their connections.
+     */
+    private static void abort(CompletableFuture<Shard>[] futures, int started, RuntimeException failure) {
+        for (int i = 0; i < started; i++) {
+            try {
+                Shard shard = futures[i].join();
+                shard.rollback();
+                shard.release();
+            } catch (RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private int[] complete(Shard[] results, int rowCount) {
+        int[] counts = new int[rowCount];
+        SqlExecutionException failure = null;
+        boolean failed = false;
+        for (Shard shard : results)
+            failed |= shard.error != null;
+        boolean commit = !failed || failurePolicy == FailurePolicy.COMMIT_PER_SHARD;
+        for (Shard shard : results) {
+            if (shard.error == null && commit) {
+                try {
+                    shard.connection.commit();
+                } catch (SQLException e) {
+                    shard.error = e;
+                    failed = true;
+                    commit = failurePolicy == FailurePolicy.COMMIT_PER_SHARD;
+                }
+            }
+            if (shard.error != null || !commit)
+                shard.rollback();
+            if (shard.error == null && commit)
+                System.arraycopy(shard.counts, 0, counts, shard.from, shard.counts.length);
+            else
+                Arrays.fill(counts, shard.from, shard.to, Statement.EXECUTE_FAILED);
+            shard.release();
+        }
+        if (!failed)
+            return counts;
+        StringBuilder message = new StringBuilder("Parallel batch execution failed, Policy: ").append(failurePolicy).append(", Failed rows:");
+        for (Shard shard : results) {
+            if (shard.error != null)
+                message.append(" [").append(shard.from).append(", ").append(shard.to).append(')');
+        }
+        for (Shard shard : results) {
+            if (shard.error == null)
+                continue;
+            if (failure == null)
+                failure = new SqlExecutionException(message.toString(), new BatchUpdateException(message.toString(), counts, shard.error));
+            else
+                failure.addSuppressed(shard.error);
+        }
+        throw failure;
+    }
+
+    private final class Shard {
+        final String sql;
+        final List<List<Object>> rows;
+        final int from;
+        final int to;
+        Connection connection;
+        boolean autoCommit;
+        int[] counts;
+        Throwable error;
+
+        Shard(String sql, List<List<Object>> rows, int from, int to) {
+            this.sql = sql;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        Shard run() {
+            try {
+                connection = connectionSupplier.get();
+                autoCommit = connection.getAutoCommit();
+                if (autoCommit)
+                    connection.setAutoCommit(false);
+                BatchSql shardSql = new BatchSqlBuilder.BatchSqlImpl(sql, rows.subList(from, to));
+                try (PreparedIntegratedStatement statement = new PreparedIntegratedStatement(connection)) {
+                    statement.setConfiguration(configuration);
+                    statement.setStatementListener(statementListener);
+                    counts = chunkSize > 0 ? statement.executeBatch(shardSql, chunkSize) : statement.executeBatch(shardSql);
+                }
+            } catch (Throwable e) {
+                error = e instanceof StatementException && e.getCause() != null ? e.getCause() : e;
+            }
+            return this;
+        }
+
+        void rollback() {
+            if (connection == null)
+                return;
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                if (error != null)
+                    error.addSuppressed(e);
+            }
+        }
+
+        void release() {
+            if (connection == null)
+                return;
+            try {
+                if (autoCommit)
+                    connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // the connection is closed right after
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                if (error != null)
+                    error.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Supplier of the connections the shards run on.
+     */
+    @FunctionalInterface
+    public interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    public enum FailurePolicy {
+        /**
+         * Commits the shards only if all of them succeeded, otherwise rolls every shard back.
+         * <p>
+         * This is not atomic: the shards are committed one after another on their own connections, so when the commit
+         * of a shard fails, the shards committed before it stay committed and only the remaining ones are rolled back.
+         * The update counts of the exception still hold the rows of those shards. Use a single connection when the whole batch
+         * must commit atomically.
+         */
+        ROLLBACK_ALL,
+        /**
+         * Commits every successful shard and rolls back only the failed ones.
+         */
+        COMMIT_PER_SHARD
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Functional interface binding a non-null parameter value of a known type with a typed setter of
+ * {@link PreparedStatement}, so the driver does not have to inspect the runtime type again.
+ *
+ * @param <T> Type of the parameter value
+ * @author Maxwell Nie
+ * @see ParameterBinders
+ */
+@FunctionalInterface
+public interface ParameterBinder<T> {
+    /**
+     * Binds the value to the statement.
+     *
+     * @param statement      Statement to bind the value to
+     * @param parameterIndex Index of the parameter, starting at 1
+     * @param value          Value to bind, never null
+     * @throws SQLException If the value cannot be bound
+     */
+    void bind(PreparedStatement statement, int parameterIndex, T value) throws SQLException;
+}
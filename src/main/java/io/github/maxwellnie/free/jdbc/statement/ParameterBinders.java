@@ -0,0 +1,177 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link ParameterBinder}s by parameter class.
+ * <p>
+ * The binder of a class is resolved once, from the binder registered for the class itself, its superclasses
+ * or its interfaces, and falls back to {@link PreparedStatement#setObject(int, Object)}. Built-in binders cover
+ * primitive wrappers, String, BigDecimal, BigInteger, byte[] and java.sql and java.util dates. The java.time
+ * types keep the setObject fallback, so a JDBC 4.2 driver maps them natively without losing nanoseconds or shifting
+ * them by the default time zone. Custom binders can be registered with {@link #register(Class, ParameterBinder)},
+ * which also replaces a built-in binder.
+ *
+ * @author Maxwell Nie
+ */
+public final class ParameterBinders {
+    public static final ParameterBinder<Object> OBJECT_BINDER = PreparedStatement::setObject;
+    private static final Map<Class<?>, ParameterBinder<?>> REGISTERED = new ConcurrentHashMap<>();
+    private static final ClassValue<Resolved> RESOLVED = new ClassValue<Resolved>() {
+        @Override
+        protected Resolved computeValue(Class<?> type) {
+            return new Resolved(version, resolve(type));
+        }
+    };
+    private static volatile int version;
+
+    static {
+        register(Integer.class, (statement, index, value) -> statement.setInt(index, value));
+        register(Long.class, (statement, index, value) -> statement.setLong(index, value));
+        register(Short.class, (statement, index, value) -> statement.setShort(index, value));
+        register(Byte.class, (statement, index, value) -> statement.setByte(index, value));
+        register(Double.class, (statement, index, value) -> statement.setDouble(index, value));
+        register(Float.class, (statement, index, value) -> statement.setFloat(index, value));
+        register(Boolean.class, (statement, index, value) -> statement.setBoolean(index, value));
+        register(Character.class, (statement, index, value) -> statement.setString(index, String.valueOf(value.charValue())));
+        register(String.class, PreparedStatement::setString);
+        register(BigDecimal.class, PreparedStatement::setBigDecimal);
+        register(BigInteger.class, (statement, index, value) -> statement.setBigDecimal(index, new BigDecimal(value)));
+        register(byte[].class, PreparedStatement::setBytes);
+        register(Timestamp.class, PreparedStatement::setTimestamp);
+        register(Date.class, PreparedStatement::setDate);
+        register(Time.class, PreparedStatement::setTime);
+        register(java.util.Date.class, (statement, index, value) -> statement.setTimestamp(index, new Timestamp(value.getTime())));
+    }
+
+    private ParameterBinders() {
+    }
+
+    /**
+     * Registers the binder used for values of the type and of its subtypes without a more specific binder.
+     *
+     * @param type   Parameter class
+     * @param binder Binder for values of the class
+     * @param <T>    Type of the parameter value
+     */
+    public static synchronized <T> void register(Class<T> type, ParameterBinder<? super T> binder) {
+        if (type == null || binder == null)
+            throw new StatementException("Parameter type and binder cannot be null");
+        REGISTERED.put(type, binder);
+        version++;
+    }
+
+    /**
+     * Returns the binder for values of exactly the given class.
+     *
+     * @param type Runtime class of the parameter value
+     * @return Resolved binder, {@link #OBJECT_BINDER} if none is registered for the class or its supertypes
+     */
+    public static ParameterBinder<Object> binderFor(Class<?> type) {
+        Resolved resolved = RESOLVED.get(type);
+        if (resolved.version != version) {
+            RESOLVED.remove(type);
+            resolved = RESOLVED.get(type);
+        }
+        return resolved.binder;
+    }
+
+    /**
+     * Binds a value with the binder resolved for its runtime class, or binds SQL NULL through setObject.
+     */
+    public static void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException {
+        if (value == null)
+            statement.setObject(parameterIndex, null);
+        else
+            binderFor(value.getClass()).bind(statement, parameterIndex, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ParameterBinder<Object> resolve(Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            ParameterBinder<?> binder = REGISTERED.get(current);
+            if (binder != null)
+                return (ParameterBinder<Object>) binder;
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> interfaceType : current.getInterfaces()) {
+                ParameterBinder<?> binder = REGISTERED.get(interfaceType);
+                if (binder != null)
+                    return (ParameterBinder<Object>) binder;
+            }
+        }
+        return OBJECT_BINDER;
+    }
+
+    private static final class Resolved {
+        final int version;
+        final ParameterBinder<Object> binder;
+
+        Resolved(int version, ParameterBinder<Object> binder) {
+            this.version = version;
+            this.binder = binder;
+        }
+    }
+
+    /**
+     * Binder cache for the columns of batch rows. The binder chosen for a column is reused
+     * for every following row as long as the value class of that column does not change.
+     */
+    public static final class ColumnBinders {
+        private Class<?>[] types = new Class<?>[8];
+        private ParameterBinder<?>[] binders = new ParameterBinder<?>[8];
+
+        /**
+         * Binds a batch row, starting at parameter index 1.
+         */
+        public void bindRow(PreparedStatement statement, List<?> parameters) throws SQLException {
+            for (int j = 0; j < parameters.size(); j++)
+                bind(statement, j, parameters.get(j));
+        }
+
+        /**
+         * Binds a batch row, starting at parameter index parameterOffset + 1. The binders are still cached per column,
+         * so several rows can be bound side by side into one multi-row statement.
+         */
+        public void bindRow(PreparedStatement statement, List<?> parameters, int parameterOffset) throws SQLException {
+            for (int j = 0; j < parameters.size(); j++)
+                bind(statement, j, parameters.get(j), parameterOffset + j + 1);
+        }
+
+        /**
+         * Binds the value of the column at parameter index column + 1.
+         */
+        public void bind(PreparedStatement statement, int column, Object value) throws SQLException {
+            bind(statement, column, value, column + 1);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void bind(PreparedStatement statement, int column, Object value, int parameterIndex) throws SQLException {
+            if (value == null) {
+                statement.setObject(parameterIndex, null);
+                return;
+            }
+            if (column >= types.length) {
+                int length = Math.max(column + 1, types.length << 1);
+                types = Arrays.copyOf(types, length);
+                binders = Arrays.copyOf(binders, length);
+            }
+            Class<?> type = value.getClass();
+            if (types[column] != type) {
+                binders[column] = binderFor(type);
+                types[column] = type;
+            }
+            ((ParameterBinder<Object>) binders[column]).bind(statement, parameterIndex, value);
+        }
+    }
+}
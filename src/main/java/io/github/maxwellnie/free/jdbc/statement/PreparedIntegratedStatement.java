@@ -1,39 +1,220 @@
 package io.github.maxwellnie.free.jdbc.statement;
 
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
 import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.batch.BatchSqlBuilder;
+import io.github.maxwellnie.free.jdbc.batch.MultiRowInsert;
+import io.github.maxwellnie.free.jdbc.cache.QueryResultCache;
 import io.github.maxwellnie.free.jdbc.single.SingleSql;
+import io.github.maxwellnie.free.jdbc.single.SqlShape;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * @author Maxwell Nie
  */
 public class PreparedIntegratedStatement extends BaseIntegratedStatement<PreparedStatement, PreparedIntegratedStatement> {
+    private static final Object[] EMPTY_PARAMETERS = new Object[0];
+    private static final String[] NO_KEY_COLUMNS = new String[0];
+    protected PreparedStatementCache statementCache;
+    protected PreparedStatementCache.Key statementKey;
+    /**
+     * Generated key columns requested by the current statement, empty for the driver's default keys and null when
+     * the statement was not prepared by one of the methods returning keys.
+     */
+    protected String[] keyColumns;
+    protected QueryResultCache resultCache;
+    protected AdaptiveFetchSize adaptiveFetchSize;
+
     public PreparedIntegratedStatement(Connection connection) {
         super(connection);
         super.integratedStatement = this;
     }
 
+    /**
+     * Creates a statement wrapper that takes its prepared statements from the cache and returns them on close.
+     *
+     * @param statementCache Statement cache of the connection to use
+     */
+    public PreparedIntegratedStatement(PreparedStatementCache statementCache) {
+        this(statementCache == null ? null : statementCache.getConnection());
+        this.statementCache = statementCache;
+    }
+
+    public PreparedStatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * Sets the cache in front of {@link #executeQuery(SingleSql, ResultParser)}. Every statement executed through
+     * this wrapper afterwards invalidates the cached results of the tables it writes.
+     */
+    public PreparedIntegratedStatement setResultCache(QueryResultCache resultCache) {
+        this.resultCache = resultCache;
+        return this;
+    }
+
+    public QueryResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Sets the fetch size chooser of the queries of this wrapper, overriding the fetch size of the configuration
+     * once a SQL string has been executed. The rows are recorded by the query methods returning a collection and by
+     * the iterators and streams, when they are closed.
+     */
+    public PreparedIntegratedStatement setAdaptiveFetchSize(AdaptiveFetchSize adaptiveFetchSize) {
+        this.adaptiveFetchSize = adaptiveFetchSize;
+        return this;
+    }
+
+    public AdaptiveFetchSize getAdaptiveFetchSize() {
+        return adaptiveFetchSize;
+    }
+
+    /**
+     * Sets the fetch size chosen for the current SQL, before every query since the statement may be reused.
+     */
+    private void applyAdaptiveFetchSize() {
+        if (adaptiveFetchSize == null)
+            return;
+        int fetchSize = adaptiveFetchSize.getFetchSize(sql, configuration == null ? 0 : configuration.getFetchSize());
+        if (fetchSize <= 0)
+            return;
+        try {
+            statement.setFetchSize(fetchSize);
+        } catch (SQLException e) {
+            throw new SqlExecutionException("Setting fetch size failed for SQL: " + sql + ", Error: " + e.getMessage() +
+                    ", Expected: fetch size accepted, Actual: " + fetchSize + " rejected", e);
+        }
+    }
+
+    /**
+     * Records the size of a query result that is a collection.
+     */
+    private <R> R recordRows(R result) {
+        if (adaptiveFetchSize != null && result instanceof Collection) {
+            int rowWidth = 0;
+            if (adaptiveFetchSize.needsRowWidth(sql)) {
+                try {
+                    rowWidth = AdaptiveFetchSize.estimateRowWidth(statement.getMetaData());
+                } catch (SQLException ignored) {
+                    // the row count is recorded without a width
+                }
+            }
+            adaptiveFetchSize.record(sql, ((Collection<?>) result).size(), rowWidth);
+        }
+        return result;
+    }
+
+    /**
+     * Executes the statement, then invalidates the cached results of the tables it writes, even when it failed.
+     */
+    @Override
+    public <P, R> R execute(Executor<? super PreparedStatement, P> executor, ResultParser<PreparedStatement, P, R> resultParser) throws SqlExecutionException, ResultParserException {
+        if (resultCache == null)
+            return super.execute(executor, resultParser);
+        String executedSql = sql;
+        try {
+            return super.execute(executor, resultParser);
+        } finally {
+            if (executedSql != null)
+                resultCache.invalidate(executedSql);
+        }
+    }
+
     @Override
     public PreparedIntegratedStatement createStatement(String sql) throws StatementException {
+        return createStatement(sql, null, null);
+    }
+
+    /**
+     * Creates the statement of a precompiled SQL shape, taking the statement cache key from the shape.
+     *
+     * @param sqlShape SQL shape
+     * @return Current integrated Statement instance, supporting method chaining
+     * @throws StatementException If Statement creation fails
+     */
+    public PreparedIntegratedStatement createStatement(SqlShape sqlShape) throws StatementException {
+        if (sqlShape == null)
+            throw new StatementException("SQL shape is null, Expected: non-null SQL shape, Actual: null SQL shape");
+        return createStatement(sqlShape.getSql(), sqlShape, null);
+    }
+
+    private PreparedIntegratedStatement createStatement(String sql, SqlShape sqlShape, String[] keyColumns) throws StatementException {
+        long start = traceStart();
         this.sql = sql;
         validateConnection();
         validateSql();
         try {
-            if (configuration != null)
+            if (statementCache != null) {
+                releaseStatement();
+                if (keyColumns != null)
+                    statementKey = PreparedStatementCache.Key.ofGeneratedKeys(sql, keyColumns);
+                else
+                    statementKey = sqlShape != null ? PreparedStatementCache.Key.of(sqlShape, configuration) : PreparedStatementCache.Key.of(sql, configuration);
+                statement = statementCache.acquire(statementKey);
+            } else if (keyColumns != null)
+                statement = StatementUtils.prepareStatement(connection, sql, keyColumns);
+            else if (configuration != null)
                 statement = StatementUtils.prepareStatement(connection, sql, configuration.getAutoGeneratedKeys(), configuration.getResultSetType(), configuration.getResultSetConcurrency(), configuration.getHoldability());
             else
                 statement = StatementUtils.prepareStatement(connection, sql);
+            this.keyColumns = keyColumns;
             applyConfiguration();
         } catch (SQLException e) {
-            throw new StatementException("Prepared statement creation failed for SQL: " + sql + ", Error: " + e.getMessage() +
-                    ", Expected: successful prepared statement creation, Actual: SQLException during creation", e);
+            throw traceFailure(StatementTrace.Phase.PREPARE, start, new StatementException("Prepared statement creation failed for SQL: " + sql + ", Error: " + e.getMessage() +
+                    ", Expected: successful prepared statement creation, Actual: SQLException during creation", e));
         }
+        traceEnd(StatementTrace.Phase.PREPARE, start);
         return integratedStatement;
     }
 
+    /**
+     * Returns the current statement to the statement cache.
+     *
+     * @throws SQLException If the statement cannot be reset
+     */
+    protected void releaseStatement() throws SQLException {
+        if (statement != null) {
+            PreparedStatement released = statement;
+            statement = null;
+            statementCache.release(statementKey, released);
+        }
+    }
+
+    /**
+     * Closes the statement, or returns it to the statement cache when this wrapper was created with one.
+     *
+     * @throws StatementException If an error occurs during closing or releasing
+     */
+    @Override
+    public void close() throws StatementException {
+        if (statementCache == null) {
+            super.close();
+            return;
+        }
+        try {
+            releaseStatement();
+        } catch (SQLException e) {
+            throw new StatementException("Error releasing statement to cache: " + e.getMessage() + ", Expected: successful release, Actual: exception during release", e);
+        }
+    }
+
     protected boolean defaultExecute() throws SqlExecutionException {
         try {
             return statement.execute();
@@ -58,7 +239,9 @@ public class PreparedIntegratedStatement extends BaseIntegratedStatement<Prepare
         return execute(Executor.PREPARED_STATEMENT_UPDATE_EXECUTOR);
     }
     /**
-     * Execute a single SQL statement.
+     * Execute a single SQL statement. When a {@link #setResultCache(QueryResultCache) result cache} is set,
+     * the cached result is returned if there is a valid one for the SQL, its parameters and the parser. Inside a
+     * transaction the cache is bypassed, so uncommitted data is never cached and survives no rollback.
      *
      * @param singleSql SQL statement to execute
      * @return result set
@@ -68,11 +251,335 @@ public class PreparedIntegratedStatement extends BaseIntegratedStatement<Prepare
     public <R> R executeQuery(SingleSql singleSql, ResultParser<PreparedStatement, Boolean, R> resultParser) throws SqlExecutionException, ResultParserException {
         if (singleSql == null)
             throw new SqlExecutionException("Single SQL cannot be null");
+        if (resultCache != null && isAutoCommit(singleSql))
+            return resultCache.get(singleSql.getSqlString(), singleSql.getSqlParameters(), resultParser, () -> executeUncachedQuery(singleSql, resultParser));
+        return executeUncachedQuery(singleSql, resultParser);
+    }
+
+    private boolean isAutoCommit(SingleSql singleSql) {
+        validateConnection();
+        try {
+            return connection.getAutoCommit();
+        } catch (SQLException e) {
+            throw new SqlExecutionException("Query failed for SQL: " + singleSql.getSqlString() + ", Error: " + e.getMessage() +
+                    ", Expected: readable auto-commit mode, Actual: SQLException", e);
+        }
+    }
+
+    private <R> R executeUncachedQuery(SingleSql singleSql, ResultParser<PreparedStatement, Boolean, R> resultParser) {
         if (statement ==  null)
             createStatement(singleSql.getSqlString());
         parameterize(SingleSql.PREPARED_STATEMENT_SINGLE_SQL_PARAMETERS_HANDLER, singleSql);
-        return execute(Executor.PREPARED_STATEMENT_EXECUTE_EXECUTOR, resultParser);
+        applyAdaptiveFetchSize();
+        return recordRows(execute(Executor.PREPARED_STATEMENT_EXECUTE_EXECUTOR, resultParser));
+    }
+    /**
+     * Execute a precompiled SQL shape with the values bound in order. The values array can be reused between calls.
+     *
+     * @param sqlShape   SQL shape to execute
+     * @param parameters parameter values, one per placeholder
+     * @return number of rows affected
+     * @throws SqlExecutionException if an error occurs during execution
+     * @throws SqlBuildException     if the number of values does not match the shape
+     */
+    public int executeUpdate(SqlShape sqlShape, Object... parameters) throws SqlExecutionException {
+        prepareShape(sqlShape).validate(parameters);
+        parameterize(SqlShape.OBJECT_ARRAY_PARAMETERS_HANDLER, parameters == null ? EMPTY_PARAMETERS : parameters);
+        return execute(Executor.PREPARED_STATEMENT_UPDATE_EXECUTOR);
+    }
+
+    /**
+     * Execute a precompiled SQL shape with typed parameter slots.
+     *
+     * @param parameters parameter slots of the shape to execute
+     * @return number of rows affected
+     * @throws SqlExecutionException if an error occurs during execution
+     */
+    public int executeUpdate(SqlShape.Parameters parameters) throws SqlExecutionException {
+        if (parameters == null)
+            throw new SqlExecutionException("Parameters cannot be null");
+        prepareShape(parameters.getShape());
+        parameterize(SqlShape.PARAMETERS_HANDLER, parameters);
+        return execute(Executor.PREPARED_STATEMENT_UPDATE_EXECUTOR);
+    }
+
+    /**
+     * Execute a precompiled SQL shape as a query with the values bound in order.
+     *
+     * @param sqlShape     SQL shape to execute
+     * @param resultParser result parser
+     * @param parameters   parameter values, one per placeholder
+     * @return parsed result
+     * @throws SqlExecutionException if an error occurs during execution
+     * @throws ResultParserException if an error occurs during result parsing
+     * @throws SqlBuildException     if the number of values does not match the shape
+     */
+    public <R> R executeQuery(SqlShape sqlShape, ResultParser<PreparedStatement, Boolean, R> resultParser, Object... parameters) throws SqlExecutionException, ResultParserException {
+        prepareShape(sqlShape).validate(parameters);
+        parameterize(SqlShape.OBJECT_ARRAY_PARAMETERS_HANDLER, parameters == null ? EMPTY_PARAMETERS : parameters);
+        applyAdaptiveFetchSize();
+        return recordRows(execute(Executor.PREPARED_STATEMENT_EXECUTE_EXECUTOR, resultParser));
+    }
+
+    /**
+     * Execute a precompiled SQL shape as a query with typed parameter slots.
+     *
+     * @param parameters   parameter slots of the shape to execute
+     * @param resultParser result parser
+     * @return parsed result
+     * @throws SqlExecutionException if an error occurs during execution
+     * @throws ResultParserException if an error occurs during result parsing
+     */
+    public <R> R executeQuery(SqlShape.Parameters parameters, ResultParser<PreparedStatement, Boolean, R> resultParser) throws SqlExecutionException, ResultParserException {
+        if (parameters == null)
+            throw new SqlExecutionException("Parameters cannot be null");
+        prepareShape(parameters.getShape());
+        parameterize(SqlShape.PARAMETERS_HANDLER, parameters);
+        applyAdaptiveFetchSize();
+        return recordRows(execute(Executor.PREPARED_STATEMENT_EXECUTE_EXECUTOR, resultParser));
+    }
+
+    /**
+     * Makes the statement of the shape current. The current statement is kept when it was created for the same
+     * shape, which is a reference comparison since shape SQL strings are interned.
+     */
+    private SqlShape prepareShape(SqlShape sqlShape) {
+        if (sqlShape == null)
+            throw new SqlExecutionException("SQL shape cannot be null");
+        if (statement != null) {
+            if (sql == sqlShape.getSql())
+                return sqlShape;
+            if (statementCache == null)
+                super.close();
+        }
+        createStatement(sqlShape);
+        return sqlShape;
+    }
+
+    /**
+     * Makes the statement of the SQL current, closing or releasing the statement of another SQL.
+     */
+    private void switchStatement(String newSql) {
+        if (statement != null) {
+            if (newSql.equals(sql))
+                return;
+            if (statementCache == null)
+                super.close();
+        }
+        createStatement(newSql);
+    }
+
+    /**
+     * Makes a statement of the SQL returning the generated keys of the columns current. The current statement is
+     * kept when it was prepared for the same SQL and key columns.
+     */
+    private void switchKeyStatement(String newSql, String[] newKeyColumns) {
+        String[] columns = newKeyColumns == null ? NO_KEY_COLUMNS : newKeyColumns;
+        if (statement != null) {
+            if (newSql.equals(sql) && Arrays.equals(columns, keyColumns))
+                return;
+            if (statementCache == null)
+                super.close();
+        }
+        createStatement(newSql, null, columns);
+    }
+
+    /**
+     * Execute a single SQL statement and return the keys it generated.
+     *
+     * @param singleSql  SQL statement to execute
+     * @param keyColumns names of the generated key columns, none for the driver's default keys
+     * @return numeric keys of the first key column
+     * @throws SqlExecutionException if an error occurs during execution
+     * @throws ResultParserException if the keys cannot be read as numbers
+     */
+    public long[] executeUpdateReturningKeys(SingleSql singleSql, String... keyColumns) throws SqlExecutionException, ResultParserException {
+        return executeUpdateReturningKeys(singleSql, GeneratedKeys.longParser(), keyColumns);
+    }
+
+    /**
+     * Execute a single SQL statement and map the keys it generated, for keys that are not numeric or span several columns.
+     *
+     * @param singleSql  SQL statement to execute
+     * @param keyMapper  row mapper applied to each generated key row
+     * @param keyColumns names of the generated key columns, none for the driver's default keys
+     * @return mapped keys
+     * @throws SqlExecutionException if an error occurs during execution
+     * @throws ResultParserException if an error occurs during key mapping
+     */
+    public <K> List<K> executeUpdateReturningKeys(SingleSql singleSql, RowMapper<K> keyMapper, String... keyColumns) throws SqlExecutionException, ResultParserException {
+        return executeUpdateReturningKeys(singleSql, GeneratedKeys.parser(keyMapper), keyColumns);
+    }
+
+    private <R> R executeUpdateReturningKeys(SingleSql singleSql, ResultParser<PreparedStatement, Integer, R> keysParser, String[] keyColumns) {
+        if (singleSql == null)
+            throw new SqlExecutionException("Single SQL cannot be null");
+        switchKeyStatement(singleSql.getSqlString(), keyColumns);
+        parameterize(SingleSql.PREPARED_STATEMENT_SINGLE_SQL_PARAMETERS_HANDLER, singleSql);
+        return execute(Executor.PREPARED_STATEMENT_UPDATE_EXECUTOR, keysParser);
+    }
+
+    /**
+     * Execute a batch SQL statement and return the keys it generated. Whether a driver returns the keys of every
+     * row of a batch is driver specific.
+     *
+     * @param batchSql   SQL statement to execute
+     * @param keyColumns names of the generated key columns, none for the driver's default keys
+     * @return numeric keys of the first key column, in row order for drivers generating one key per row
+     * @throws SqlExecutionException if an error occurs during execution
+     * @throws ResultParserException if the keys cannot be read as numbers
+     */
+    public long[] executeBatchReturningKeys(BatchSql batchSql, String... keyColumns) throws SqlExecutionException, ResultParserException {
+        return executeBatchReturningKeys(batchSql, GeneratedKeys.longParser(), keyColumns);
+    }
+
+    /**
+     * Execute a batch SQL statement and map the keys it generated.
+     *
+     * @param batchSql   SQL statement to execute
+     * @param keyMapper  row mapper applied to each generated key row
+     * @param keyColumns names of the generated key columns, none for the driver's default keys
+     * @return mapped keys
+     * @throws SqlExecutionException if an error occurs during execution
+     * @throws ResultParserException if an error occurs during key mapping
+     */
+    public <K> List<K> executeBatchReturningKeys(BatchSql batchSql, RowMapper<K> keyMapper, String... keyColumns) throws SqlExecutionException, ResultParserException {
+        return executeBatchReturningKeys(batchSql, GeneratedKeys.parser(keyMapper), keyColumns);
+    }
+
+    private <R> R executeBatchReturningKeys(BatchSql batchSql, ResultParser<PreparedStatement, int[], R> keysParser, String[] keyColumns) {
+        if (batchSql == null)
+            throw new SqlExecutionException("Batch SQL cannot be null");
+        switchKeyStatement(batchSql.getSqlString(), keyColumns);
+        parameterize(BatchSql.BATCH_SQL_PARAMETERS_HANDLER, batchSql);
+        return execute(Executor.PREPARED_STATEMENT_BATCH_EXECUTOR, keysParser);
+    }
+
+    /**
+     * Execute a batch SQL statement in chunks and pass the keys generated by every chunk to the consumer, so the
+     * keys of very large or streaming batches are never collected.
+     *
+     * @param batchSql    SQL statement to execute
+     * @param chunkSize   maximum number of rows sent to the database at once
+     * @param keyConsumer consumer of the numeric keys of the first key column
+     * @param keyColumns  names of the generated key columns, none for the driver's default keys
+     * @return total affected rows of all chunks
+     * @throws SqlExecutionException if an error occurs during execution, the consumer fails or chunkSize is not greater than 0
+     */
+    public BatchSummary executeBatchReturningKeys(BatchSql batchSql, int chunkSize, GeneratedKeys.LongKeyConsumer keyConsumer, String... keyColumns) throws SqlExecutionException {
+        if (batchSql == null)
+            throw new SqlExecutionException("Batch SQL cannot be null");
+        if (keyConsumer == null)
+            throw new SqlExecutionException("Key consumer cannot be null");
+        Executor<PreparedStatement, BatchSummary> executor = Executor.preparedStatementChunkedBatchKeysExecutor(batchSql, chunkSize, keyConsumer);
+        switchKeyStatement(batchSql.getSqlString(), keyColumns);
+        if (statementListener != null)
+            trace.parameters(batchSql);
+        return execute(executor);
+    }
+
+    /**
+     * Execute a query and stream its rows lazily. Rows are fetched on demand in batches of the configured
+     * fetch size. Closing the stream closes the result set and this statement wrapper, which returns the
+     * statement to the statement cache when there is one. The stream is also released once fully consumed.
+     *
+     * @param singleSql SQL statement to execute
+     * @param rowMapper row mapper applied to each row
+     * @return stream of mapped rows, to be used in a try-with-resources block
+     * @throws SqlExecutionException if an error occurs during execution
+     */
+    public <T> Stream<T> executeQueryStream(SingleSql singleSql, RowMapper<T> rowMapper) throws SqlExecutionException {
+        return executeQueryIterator(singleSql, rowMapper, StreamingMode.DEFAULT).stream();
+    }
+
+    /**
+     * Execute a query and stream its rows lazily, applying the driver specific streaming settings of the mode.
+     *
+     * @param singleSql     SQL statement to execute
+     * @param rowMapper     row mapper applied to each row
+     * @param streamingMode driver specific streaming settings
+     * @return stream of mapped rows, to be used in a try-with-resources block
+     * @throws SqlExecutionException if an error occurs during execution
+     * @see #executeQueryStream(SingleSql, RowMapper)
+     */
+    public <T> Stream<T> executeQueryStream(SingleSql singleSql, RowMapper<T> rowMapper, StreamingMode streamingMode) throws SqlExecutionException {
+        return executeQueryIterator(singleSql, rowMapper, streamingMode).stream();
+    }
+
+    /**
+     * Execute a query and iterate its rows lazily.
+     *
+     * @param singleSql SQL statement to execute
+     * @param rowMapper row mapper applied to each row
+     * @return iterator of mapped rows, to be closed after use
+     * @throws SqlExecutionException if an error occurs during execution
+     * @see #executeQueryStream(SingleSql, RowMapper)
+     */
+    public <T> ResultIterator<T> executeQueryIterator(SingleSql singleSql, RowMapper<T> rowMapper) throws SqlExecutionException {
+        return executeQueryIterator(singleSql, rowMapper, StreamingMode.DEFAULT);
+    }
+
+    /**
+     * Execute a query and iterate its rows lazily, applying the driver specific streaming settings of the mode.
+     *
+     * @param singleSql     SQL statement to execute
+     * @param rowMapper     row mapper applied to each row
+     * @param streamingMode driver specific streaming settings
+     * @return iterator of mapped rows, to be closed after use
+     * @throws SqlExecutionException if an error occurs during execution
+     * @see #executeQueryStream(SingleSql, RowMapper)
+     */
+    public <T> ResultIterator<T> executeQueryIterator(SingleSql singleSql, RowMapper<T> rowMapper, StreamingMode streamingMode) throws SqlExecutionException {
+        if (singleSql == null)
+            throw new SqlExecutionException("Single SQL cannot be null");
+        if (rowMapper == null)
+            throw new SqlExecutionException("Row mapper cannot be null");
+        if (streamingMode == null)
+            throw new SqlExecutionException("Streaming mode cannot be null");
+        if (statement ==  null)
+            createStatement(singleSql.getSqlString());
+        PreparedStatement streamed = statement;
+        int previousFetchSize;
+        boolean restoreAutoCommit;
+        try {
+            previousFetchSize = streamed.getFetchSize();
+            applyAdaptiveFetchSize();
+            restoreAutoCommit = streamingMode.prepare(connection, streamed);
+        } catch (SQLException e) {
+            throw new SqlExecutionException("Streaming setup failed for SQL: " + sql + ", Error: " + e.getMessage(), e);
+        }
+        // the fetch size is restored before the statement goes back to the cache, so it does not keep streaming
+        AutoCloseable onClose = () -> {
+            try {
+                try {
+                    if (!streamed.isClosed() && streamed.getFetchSize() != previousFetchSize)
+                        streamed.setFetchSize(previousFetchSize);
+                } finally {
+                    close();
+                }
+            } finally {
+                if (restoreAutoCommit)
+                    connection.setAutoCommit(true);
+            }
+        };
+        ResultSet resultSet;
+        try {
+            parameterize(SingleSql.PREPARED_STATEMENT_SINGLE_SQL_PARAMETERS_HANDLER, singleSql);
+            resultSet = execute(Executor.PREPARED_STATEMENT_QUERY_EXECUTOR);
+        } catch (RuntimeException e) {
+            try {
+                onClose.close();
+            } catch (Exception suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        ResultIterator<T> iterator = new ResultIterator<>(resultSet, rowMapper, onClose);
+        if (adaptiveFetchSize != null)
+            iterator.recordRowsTo(adaptiveFetchSize, sql);
+        return iterator;
     }
+
     /**
      * Execute a batch SQL statement.
      *
@@ -88,4 +595,416 @@ public class PreparedIntegratedStatement extends BaseIntegratedStatement<Prepare
         parameterize(BatchSql.BATCH_SQL_PARAMETERS_HANDLER, batchSql);
         return execute(Executor.PREPARED_STATEMENT_BATCH_EXECUTOR);
     }
-}
\ No newline at end of file
+
+    /**
+     * Execute a batch SQL statement in chunks, flushing the batch every chunkSize rows.
+     *
+     * @param batchSql  SQL statement to execute
+     * @param chunkSize maximum number of rows sent to the database at once
+     * @return number of rows affected, merged from all chunks in row order
+     * @throws SqlExecutionException if an error occurs during execution or chunkSize is not greater than 0
+     */
+    public int[] executeBatch(BatchSql batchSql, int chunkSize) throws SqlExecutionException {
+        if (batchSql == null)
+            throw new SqlExecutionException("Batch SQL cannot be null");
+        if (chunkSize <= 0)
+            throw new SqlExecutionException("Chunk size must be greater than 0, Actual: " + chunkSize);
+        if (statement ==  null)
+            createStatement(batchSql.getSqlString());
+        if (statementListener != null)
+            trace.parameters(batchSql);
+        return execute(Executor.preparedStatementChunkedBatchExecutor(batchSql, chunkSize));
+    }
+
+    /**
+     * Execute a batch SQL statement in chunks with executeLargeBatch, returning a summary instead of one update count
+     * per row.
+     *
+     * @param batchSql  SQL statement to execute
+     * @param chunkSize maximum number of rows sent to the database at once
+     * @return total affected rows, SUCCESS_NO_INFO count and failed row positions of all chunks
+     * @throws SqlExecutionException if an error occurs during execution or chunkSize is not greater than 0
+     * @see #executeLargeBatch(BatchSql, int, boolean)
+     */
+    public BatchSummary executeLargeBatch(BatchSql batchSql, int chunkSize) throws SqlExecutionException {
+        return executeLargeBatch(batchSql, chunkSize, false);
+    }
+
+    /**
+     * Execute a batch SQL statement in chunks with executeLargeBatch, returning a summary instead of one update count
+     * per row. A chunk rejected with a {@link BatchUpdateException} does not stop the batch: its failed rows are
+     * recorded in the summary, together with the rows the driver skipped after the failure, and the next chunk is
+     * executed. Whether the rows of a failed chunk are kept depends on the driver and the transaction of the caller.
+     *
+     * @param batchSql         SQL statement to execute
+     * @param chunkSize        maximum number of rows sent to the database at once
+     * @param keepUpdateCounts true to keep the update count of every row in the summary
+     * @return total affected rows, SUCCESS_NO_INFO count and failed row positions of all chunks
+     * @throws SqlExecutionException if an error other than a batch update failure occurs or chunkSize is not greater than 0
+     */
+    public BatchSummary executeLargeBatch(BatchSql batchSql, int chunkSize, boolean keepUpdateCounts) throws SqlExecutionException {
+        if (batchSql == null)
+            throw new SqlExecutionException("Batch SQL cannot be null");
+        Executor<PreparedStatement, BatchSummary> executor = Executor.preparedStatementLargeBatchSummaryExecutor(batchSql, chunkSize, keepUpdateCounts);
+        if (statement == null)
+            createStatement(batchSql.getSqlString());
+        if (statementListener != null)
+            trace.parameters(batchSql);
+        return execute(executor);
+    }
+
+    /**
+     * Execute a batch SQL statement in chunks, rejecting the rows the database refuses instead of failing the batch.
+     *
+     * @param batchSql  SQL statement to execute
+     * @param chunkSize maximum number of rows sent to the database at once
+     * @return update counts and rejected rows
+     * @throws SqlExecutionException if an error other than a batch update failure occurs
+     * @see #executeBatchResilient(BatchSql, int, int)
+     */
+    public ResilientBatchResult executeBatchResilient(BatchSql batchSql, int chunkSize) throws SqlExecutionException {
+        return executeBatchResilient(batchSql, chunkSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Execute a batch SQL statement in chunks, rejecting the rows the database refuses instead of failing the batch.
+     * <p>
+     * When a chunk fails with a {@link BatchUpdateException}, its update counts locate the failure: rows marked
+     * {@link java.sql.Statement#EXECUTE_FAILED} are rejected when the driver went on after them, otherwise the row
+     * after the last reported count is rejected and the chunk resumes behind it. When the driver reports no counts,
+     * the chunk is rolled back to its savepoint and bisected until the failing rows are isolated. Without a savepoint,
+     * in auto-commit mode or when savepoints are not supported, the rows applied before the failure cannot be told
+     * apart, so the batch fails instead. Rows that succeeded are not sent again.
+     * <p>
+     * Inside a transaction every attempt runs under a savepoint, so a failure does not abort the transaction.
+     * Rolling back to the savepoint also undoes the successful rows of the attempt, which are then sent again and
+     * counted by {@link ResilientBatchResult#getResentRowCount()}. The rows must be held in memory, a
+     * {@link io.github.maxwellnie.free.jdbc.batch.StreamingBatchSql} cannot be resent.
+     *
+     * @param batchSql        SQL statement to execute
+     * @param chunkSize       maximum number of rows sent to the database at once
+     * @param maxRejectedRows number of rejected rows after which the batch fails
+     * @return update counts and rejected rows
+     * @throws SqlExecutionException if an error other than a batch update failure occurs, more than maxRejectedRows
+     *                               rows are rejected or a failure without update counts occurs without a savepoint,
+     *                               caused by a {@link BatchUpdateException} holding the update counts of the rows
+     *                               before the current chunk
+     */
+    public ResilientBatchResult executeBatchResilient(BatchSql batchSql, int chunkSize, int maxRejectedRows) throws SqlExecutionException {
+        if (batchSql == null)
+            throw new SqlExecutionException("Batch SQL cannot be null");
+        if (chunkSize <= 0)
+            throw new SqlExecutionException("Chunk size must be greater than 0, Actual: " + chunkSize);
+        if (maxRejectedRows < 0)
+            throw new SqlExecutionException("Max rejected rows cannot be negative, Actual: " + maxRejectedRows);
+        List<List<Object>> rows;
+        try {
+            rows = batchSql.getParamsLists();
+        } catch (UnsupportedOperationException e) {
+            throw new SqlExecutionException("Resilient batch requires the batch rows in memory, SQL: " + batchSql.getSqlString(), e);
+        }
+        if (statement == null)
+            createStatement(batchSql.getSqlString());
+        boolean savepoints;
+        try {
+            savepoints = !connection.getAutoCommit();
+        } catch (SQLException e) {
+            throw new SqlExecutionException("Resilient batch failed for SQL: " + sql + ", Error: " + e.getMessage() +
+                    ", Expected: readable auto-commit mode, Actual: SQLException", e);
+        }
+        ResilientBatchResult result = new ResilientBatchResult(rows);
+        ParameterBinders.ColumnBinders columnBinders = new ParameterBinders.ColumnBinders();
+        ArrayDeque<int[]> segments = new ArrayDeque<>();
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            segments.add(new int[]{from, Math.min(from + chunkSize, rows.size())});
+            while (!segments.isEmpty()) {
+                int[] segment = segments.pollFirst();
+                savepoints = executeSegment(batchSql, rows, segment[0], segment[1], savepoints, columnBinders, segments, result);
+                if (result.getRejectedRows().size() > maxRejectedRows) {
+                    String message = "Resilient batch rejected more than " + maxRejectedRows + " rows for SQL: " + sql +
+                            ", Last rejected row: " + result.getRejectedRows().get(result.getRejectedRows().size() - 1);
+                    throw new SqlExecutionException(message, new BatchUpdateException(message, result.getUpdateCounts(from),
+                            result.getRejectedRows().get(result.getRejectedRows().size() - 1).getCause()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Executes the rows [from, to) once and queues the segments that have to be sent again after a failure.
+     *
+     * @return false if savepoints turned out to be unsupported
+     */
+    private boolean executeSegment(BatchSql batchSql, List<List<Object>> rows, int from, int to, boolean savepoints,
+                                   ParameterBinders.ColumnBinders columnBinders, ArrayDeque<int[]> segments, ResilientBatchResult result) {
+        Savepoint savepoint = null;
+        try {
+            if (savepoints)
+                savepoint = connection.setSavepoint();
+        } catch (SQLFeatureNotSupportedException e) {
+            savepoints = false;
+        } catch (SQLException e) {
+            throw new SqlExecutionException("Savepoint creation failed for SQL: " + sql + ", Error: " + e.getMessage(), e);
+        }
+        BatchUpdateException failure;
+        try {
+            if (statementListener != null)
+                trace.parameters(batchSql);
+            Executor<PreparedStatement, int[]> executor = (statement, sql) -> {
+                try {
+                    for (int i = from; i < to; i++) {
+                        columnBinders.bindRow(statement, rows.get(i));
+                        statement.addBatch();
+                    }
+                    return statement.executeBatch();
+                } finally {
+                    statement.clearBatch();
+                }
+            };
+            int[] counts = execute(executor);
+            result.succeeded(from, counts, to - from);
+            releaseSavepoint(savepoint);
+            return savepoints;
+        } catch (SqlExecutionException e) {
+            if (!(e.getCause() instanceof BatchUpdateException)) {
+                rollbackSavepoint(savepoint, e);
+                throw e;
+            }
+            failure = (BatchUpdateException) e.getCause();
+        }
+        rollbackSavepoint(savepoint, null);
+        int[] counts = failure.getUpdateCounts() == null ? new int[0] : failure.getUpdateCounts();
+        int rowCount = to - from;
+        List<int[]> retries = new ArrayList<>();
+        boolean marked = false;
+        for (int count : counts)
+            marked |= count == java.sql.Statement.EXECUTE_FAILED;
+        if (marked && counts.length == rowCount) {
+            SQLException cause = failure.getNextException();
+            int resumeFrom = from;
+            for (int i = 0; i < rowCount; i++) {
+                if (counts[i] != java.sql.Statement.EXECUTE_FAILED)
+                    continue;
+                result.rejected(from + i, cause != null ? cause : failure);
+                if (cause != null)
+                    cause = cause.getNextException();
+                if (savepoint != null)
+                    retry(retries, result, resumeFrom, from + i);
+                else
+                    result.succeeded(resumeFrom, Arrays.copyOfRange(counts, resumeFrom - from, i), from + i - resumeFrom);
+                resumeFrom = from + i + 1;
+            }
+            if (savepoint != null)
+                retry(retries, result, resumeFrom, to);
+            else
+                result.succeeded(resumeFrom, Arrays.copyOfRange(counts, resumeFrom - from, rowCount), to - resumeFrom);
+        } else if (!marked && counts.length > 0 && counts.length < rowCount) {
+            int failed = from + counts.length;
+            if (savepoint != null)
+                retry(retries, result, from, failed);
+            else
+                result.succeeded(from, counts, counts.length);
+            result.rejected(failed, failure.getNextException() != null ? failure.getNextException() : failure);
+            if (failed + 1 < to)
+                retries.add(new int[]{failed + 1, to});
+        } else if (rowCount == 1) {
+            result.rejected(from, failure.getNextException() != null ? failure.getNextException() : failure);
+        } else if (savepoint == null) {
+            // without a savepoint the rows the driver executed before the failure stay applied, bisecting would resend them
+            String message = "Resilient batch cannot locate the failing rows of [" + from + ", " + to + ") for SQL: " + sql +
+                    ", Error: " + failure.getMessage() + ", Expected: update counts or a transaction with savepoints, Actual: no update counts";
+            throw new SqlExecutionException(message, new BatchUpdateException(message, result.getUpdateCounts(from), failure));
+        } else {
+            int middle = (from + to) >>> 1;
+            retry(retries, result, from, middle);
+            retry(retries, result, middle, to);
+        }
+        for (int i = retries.size() - 1; i >= 0; i--)
+            segments.addFirst(retries.get(i));
+        return savepoints;
+    }
+
+    private static void retry(List<int[]> retries, ResilientBatchResult result, int from, int to) {
+        if (from >= to)
+            return;
+        retries.add(new int[]{from, to});
+        result.resent(to - from);
+    }
+
+    private void releaseSavepoint(Savepoint savepoint) {
+        if (savepoint == null)
+            return;
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException ignored) {
+            // released with the transaction
+        }
+    }
+
+    private void rollbackSavepoint(Savepoint savepoint, RuntimeException failure) {
+        if (savepoint == null)
+            return;
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            if (failure != null) {
+                failure.addSuppressed(e);
+                return;
+            }
+            throw new SqlExecutionException("Rollback to savepoint failed for SQL: " + sql + ", Error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Execute a batch of single-row inserts as multi-row inserts, with as many rows per statement as fit under
+     * {@link MultiRowInsert#DEFAULT_MAX_BIND_PARAMETERS} bind parameters.
+     *
+     * @param batchSql batch of a single-row INSERT ... VALUES statement
+     * @return update count of every row
+     * @throws SqlExecutionException if an error occurs during execution
+     * @see #executeMultiRowInsert(BatchSql, int)
+     */
+    public int[] executeMultiRowInsert(BatchSql batchSql) throws SqlExecutionException {
+        return executeMultiRowInsert(batchSql, MultiRowInsert.DEFAULT_MAX_BIND_PARAMETERS);
+    }
+
+    /**
+     * Execute a batch of single-row inserts as multi-row {@code INSERT ... VALUES (...), (...)} statements.
+     * Each statement holds as many rows as fit under the bind parameter limit, the last one holds the remaining rows.
+     * The rewritten statements are prepared through the statement cache when there is one, and this wrapper
+     * holds the statement of the last chunk afterwards.
+     * <p>
+     * A row counts 1 when its statement reported exactly one row per tuple, {@link java.sql.Statement#SUCCESS_NO_INFO}
+     * otherwise. The rows must be held in memory, a {@link io.github.maxwellnie.free.jdbc.batch.StreamingBatchSql}
+     * cannot be rewritten.
+     *
+     * @param batchSql          batch of a single-row INSERT ... VALUES statement
+     * @param maxBindParameters maximum number of bind parameters per statement
+     * @return update count of every row
+     * @throws SqlBuildException     if the SQL is not a single-row insert that can be rewritten
+     * @throws SqlExecutionException if an error occurs during execution, caused by a {@link BatchUpdateException}
+     *                               holding the update counts of the rows inserted before the failing statement
+     */
+    public int[] executeMultiRowInsert(BatchSql batchSql, int maxBindParameters) throws SqlExecutionException {
+        if (batchSql == null)
+            throw new SqlExecutionException("Batch SQL cannot be null");
+        if (maxBindParameters <= 0)
+            throw new SqlExecutionException("Max bind parameters must be greater than 0, Actual: " + maxBindParameters);
+        MultiRowInsert insert = MultiRowInsert.of(batchSql.getSqlString());
+        List<List<Object>> rows;
+        try {
+            rows = batchSql.getParamsLists();
+        } catch (UnsupportedOperationException e) {
+            throw new SqlExecutionException("Multi-row insert requires the batch rows in memory, SQL: " + batchSql.getSqlString(), e);
+        }
+        int rowCount = rows.size();
+        int[] counts = new int[rowCount];
+        int rowsPerStatement = insert.getRowsPerStatement(maxBindParameters);
+        // the chunk is bound as a batch SQL, so listeners see its rows one by one rather than as one flat row
+        ParametersHandler<PreparedStatement, BatchSql> rowsHandler = (statement, chunkSql) ->
+                insert.getParametersHandler().parameterize(statement, chunkSql.getParamsLists());
+        for (int from = 0; from < rowCount; ) {
+            int chunk = Math.min(rowsPerStatement, rowCount - from);
+            try {
+                String chunkSql = insert.sqlFor(chunk);
+                switchStatement(chunkSql);
+                parameterize(rowsHandler, new BatchSqlBuilder.BatchSqlImpl(chunkSql, rows.subList(from, from + chunk)));
+                MultiRowInsert.fillUpdateCounts(execute(Executor.PREPARED_STATEMENT_UPDATE_EXECUTOR), counts, from, chunk);
+            } catch (StatementException e) {
+                String message = "Multi-row insert failed at rows [" + from + ", " + (from + chunk) + ") for SQL: " + batchSql.getSqlString() + ", Error: " + e.getMessage();
+                throw new SqlExecutionException(message, new BatchUpdateException(message, Arrays.copyOf(counts, from), e.getCause() != null ? e.getCause() : e));
+            }
+            from += chunk;
+        }
+        return counts;
+    }
+
+    /**
+     * Execute a single SQL statement asynchronously on the default executor.
+     *
+     * @param singleSql SQL statement to execute
+     * @return future completed with the number of rows affected
+     * @see #executeUpdateAsync(SingleSql, java.util.concurrent.Executor)
+     */
+    public CompletableFuture<Integer> executeUpdateAsync(SingleSql singleSql) {
+        return executeUpdateAsync(singleSql, null);
+    }
+
+    /**
+     * Execute a single SQL statement asynchronously.
+     * This statement wrapper must not be used by other threads until the returned future completes.
+     *
+     * @param singleSql     SQL statement to execute
+     * @param asyncExecutor executor running the statement, {@link AsyncExecutors#defaultExecutor()} if null
+     * @return future completed with the number of rows affected, or exceptionally with a {@link SqlExecutionException}
+     */
+    public CompletableFuture<Integer> executeUpdateAsync(SingleSql singleSql, java.util.concurrent.Executor asyncExecutor) {
+        return supplyAsync(() -> executeUpdate(singleSql), asyncExecutor);
+    }
+
+    /**
+     * Execute a query asynchronously on the default executor.
+     *
+     * @param singleSql    SQL statement to execute
+     * @param resultParser result parser
+     * @return future completed with the parsed result
+     * @see #executeQueryAsync(SingleSql, ResultParser, java.util.concurrent.Executor)
+     */
+    public <R> CompletableFuture<R> executeQueryAsync(SingleSql singleSql, ResultParser<PreparedStatement, Boolean, R> resultParser) {
+        return executeQueryAsync(singleSql, resultParser, null);
+    }
+
+    /**
+     * Execute a query asynchronously.
+     * This statement wrapper must not be used by other threads until the returned future completes.
+     *
+     * @param singleSql     SQL statement to execute
+     * @param resultParser  result parser
+     * @param asyncExecutor executor running the statement, {@link AsyncExecutors#defaultExecutor()} if null
+     * @return future completed with the parsed result, or exceptionally with a {@link StatementException}
+     */
+    public <R> CompletableFuture<R> executeQueryAsync(SingleSql singleSql, ResultParser<PreparedStatement, Boolean, R> resultParser, java.util.concurrent.Executor asyncExecutor) {
+        return supplyAsync(() -> executeQuery(singleSql, resultParser), asyncExecutor);
+    }
+
+    /**
+     * Execute a batch SQL statement asynchronously on the default executor.
+     *
+     * @param batchSql SQL statement to execute
+     * @return future completed with the number of rows affected
+     * @see #executeBatchAsync(BatchSql, java.util.concurrent.Executor)
+     */
+    public CompletableFuture<int[]> executeBatchAsync(BatchSql batchSql) {
+        return executeBatchAsync(batchSql, null);
+    }
+
+    /**
+     * Execute a batch SQL statement asynchronously.
+     * This statement wrapper must not be used by other threads until the returned future completes.
+     *
+     * @param batchSql      SQL statement to execute
+     * @param asyncExecutor executor running the statement, {@link AsyncExecutors#defaultExecutor()} if null
+     * @return future completed with the number of rows affected, or exceptionally with a {@link SqlExecutionException}
+     */
+    public CompletableFuture<int[]> executeBatchAsync(BatchSql batchSql, java.util.concurrent.Executor asyncExecutor) {
+        return supplyAsync(() -> executeBatch(batchSql), asyncExecutor);
+    }
+
+    /**
+     * Execute a batch SQL statement asynchronously in chunks.
+     *
+     * @param batchSql      SQL statement to execute
+     * @param chunkSize     maximum number of rows sent to the database at once
+     * @param asyncExecutor executor running the statement, {@link AsyncExecutors#defaultExecutor()} if null
+     * @return future completed with the number of rows affected, or exceptionally with a {@link SqlExecutionException}
+     * @see #executeBatch(BatchSql, int)
+     */
+    public CompletableFuture<int[]> executeBatchAsync(BatchSql batchSql, int chunkSize, java.util.concurrent.Executor asyncExecutor) {
+        return supplyAsync(() -> executeBatch(batchSql, chunkSize), asyncExecutor);
+    }
+
+    private static <R> CompletableFuture<R> supplyAsync(Supplier<R> task, java.util.concurrent.Executor asyncExecutor) {
+        return CompletableFuture.supplyAsync(task, asyncExecutor == null ? AsyncExecutors.defaultExecutor() : asyncExecutor);
+    }
+}
@@ -0,0 +1,309 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import io.github.maxwellnie.free.jdbc.single.SqlShape;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Bounded LRU cache of prepared statements scoped to a single {@link Connection}.
+ * <p>
+ * A statement is removed from the cache while it is in use by a {@link PreparedIntegratedStatement}
+ * and put back when the wrapper is closed, so two wrappers never share the same statement.
+ * When the cache grows beyond its capacity the least recently released statement is closed.
+ *
+ * @author Maxwell Nie
+ */
+public class PreparedStatementCache implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 64;
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    /**
+     * Fetch size, query timeout and max rows of the first statement prepared by the cache, restored on release.
+     */
+    private int[] statementDefaults;
+
+    public PreparedStatementCache(Connection connection) {
+        this(connection, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param connection Connection the cached statements belong to
+     * @param capacity   Maximum number of idle statements kept open, must be greater than 0
+     * @throws StatementException if connection is null or capacity is less than or equal to 0
+     */
+    public PreparedStatementCache(Connection connection, int capacity) {
+        if (connection == null)
+            throw new StatementException("Connection is null, Expected: active database connection, Actual: null connection");
+        if (capacity <= 0)
+            throw new StatementException("Statement cache capacity must be greater than 0, Actual: " + capacity);
+        this.connection = connection;
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Takes a statement matching the key out of the cache, preparing a new one on a miss.
+     *
+     * @param key Statement cache key
+     * @return Prepared statement owned by the caller until it is {@link #release(Key, PreparedStatement) released}
+     * @throws SQLException If the statement cannot be prepared
+     */
+    public synchronized PreparedStatement acquire(Key key) throws SQLException {
+        PreparedStatement statement = statements.remove(key);
+        if (statement != null && !statement.isClosed()) {
+            hitCount++;
+            return statement;
+        }
+        missCount++;
+        if (key.keyColumns != null)
+            statement = StatementUtils.prepareStatement(connection, key.sql, key.keyColumns);
+        else
+            statement = StatementUtils.prepareStatement(connection, key.sql, key.autoGeneratedKeys, key.resultSetType, key.resultSetConcurrency, key.holdability);
+        if (statementDefaults == null) {
+            try {
+                statementDefaults = new int[]{statement.getFetchSize(), statement.getQueryTimeout(), statement.getMaxRows()};
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Returns a statement to the cache. Its parameters and pending batch are cleared first, and its fetch size, query
+     * timeout and max rows are reset to the driver defaults, so the next borrower does not inherit them.
+     * If an equal statement is already cached or the statement is closed, the returned one is discarded.
+     *
+     * @param key       Key the statement was acquired with
+     * @param statement Statement to return
+     * @throws SQLException If the statement cannot be reset or an evicted statement cannot be closed
+     */
+    public synchronized void release(Key key, PreparedStatement statement) throws SQLException {
+        if (statement == null || statement.isClosed())
+            return;
+        if (statements.containsKey(key)) {
+            statement.close();
+            return;
+        }
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+            resetSettings(statement);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        statements.put(key, statement);
+        if (statements.size() > capacity)
+            evict(statements.size() - capacity);
+    }
+
+    private void resetSettings(PreparedStatement statement) throws SQLException {
+        if (statementDefaults == null)
+            return;
+        // max rows first, some drivers reject a fetch size above it
+        if (statement.getMaxRows() != statementDefaults[2])
+            statement.setMaxRows(statementDefaults[2]);
+        if (statement.getFetchSize() != statementDefaults[0])
+            statement.setFetchSize(statementDefaults[0]);
+        if (statement.getQueryTimeout() != statementDefaults[1])
+            statement.setQueryTimeout(statementDefaults[1]);
+    }
+
+    private void evict(int count) throws SQLException {
+        SQLException exception = null;
+        Iterator<PreparedStatement> iterator = statements.values().iterator();
+        while (count-- > 0 && iterator.hasNext()) {
+            PreparedStatement eldest = iterator.next();
+            iterator.remove();
+            evictionCount++;
+            try {
+                eldest.close();
+            } catch (SQLException e) {
+                if (exception == null)
+                    exception = e;
+                else
+                    exception.addSuppressed(e);
+            }
+        }
+        if (exception != null)
+            throw exception;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return Number of idle statements currently held by the cache
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PreparedStatementCache{size=" + statements.size() + ", capacity=" + capacity + ", hits=" + hitCount +
+                ", misses=" + missCount + ", evictions=" + evictionCount + "}";
+    }
+
+    /**
+     * Closes every idle statement held by the cache. Statements currently acquired are not affected.
+     *
+     * @throws StatementException If one or more statements fail to close
+     */
+    @Override
+    public void close() throws StatementException {
+        List<PreparedStatement> idle;
+        synchronized (this) {
+            idle = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+        StatementException exception = null;
+        for (PreparedStatement statement : idle) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                if (exception == null)
+                    exception = new StatementException("Error closing cached statement: " + e.getMessage() + ", Expected: successful closure, Actual: exception during closure", e);
+                else
+                    exception.addSuppressed(e);
+            }
+        }
+        if (exception != null)
+            throw exception;
+    }
+
+    /**
+     * Cache key made of the SQL string and the statement creation fields of a {@link Configuration}, or of the
+     * SQL string and the generated key columns.
+     */
+    public static final class Key {
+        final String sql;
+        final int autoGeneratedKeys;
+        final int resultSetType;
+        final int resultSetConcurrency;
+        final int holdability;
+        final String[] keyColumns;
+        private final int hash;
+
+        public Key(String sql, int autoGeneratedKeys, int resultSetType, int resultSetConcurrency, int holdability) {
+            this(sql, sql.hashCode(), autoGeneratedKeys, resultSetType, resultSetConcurrency, holdability);
+        }
+
+        /**
+         * @param sqlHash Hash code of the SQL string, computed by the caller
+         */
+        public Key(String sql, int sqlHash, int autoGeneratedKeys, int resultSetType, int resultSetConcurrency, int holdability) {
+            this(sql, sqlHash, autoGeneratedKeys, resultSetType, resultSetConcurrency, holdability, null);
+        }
+
+        private Key(String sql, int sqlHash, int autoGeneratedKeys, int resultSetType, int resultSetConcurrency, int holdability, String[] keyColumns) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.holdability = holdability;
+            this.keyColumns = keyColumns;
+            int h = sqlHash;
+            h = 31 * h + autoGeneratedKeys;
+            h = 31 * h + resultSetType;
+            h = 31 * h + resultSetConcurrency;
+            h = 31 * h + holdability;
+            h = 31 * h + Arrays.hashCode(keyColumns);
+            this.hash = h;
+        }
+
+        /**
+         * Creates the key of a statement prepared with the configuration. Fields that
+         * {@link StatementUtils#prepareStatement(Connection, String, int, int, int, int)} ignores are normalized,
+         * so configurations producing the same statement share one key.
+         */
+        public static Key of(String sql, Configuration configuration) {
+            return of(sql, sql.hashCode(), configuration, null);
+        }
+
+        /**
+         * Creates the key of a statement prepared from the shape with the configuration, without hashing the SQL again.
+         * The key of the shape itself is returned when the configuration does not change how the statement is prepared.
+         */
+        public static Key of(SqlShape shape, Configuration configuration) {
+            return of(shape.getSql(), shape.getSqlHash(), configuration, shape.getCacheKey());
+        }
+
+        /**
+         * Creates the key of a statement returning the generated keys of the named columns, or the driver's default
+         * keys when no column is named.
+         */
+        public static Key ofGeneratedKeys(String sql, String... keyColumns) {
+            String[] columns = keyColumns == null || keyColumns.length == 0 ? null : keyColumns.clone();
+            return new Key(sql, sql.hashCode(), Statement.RETURN_GENERATED_KEYS, 0, 0, -1, columns);
+        }
+
+        private static Key of(String sql, int sqlHash, Configuration configuration, Key defaultKey) {
+            if (configuration != null && configuration.getAutoGeneratedKeys() > 0)
+                return new Key(sql, sqlHash, configuration.getAutoGeneratedKeys(), 0, 0, -1);
+            if (configuration == null || configuration.getResultSetType() <= 0 || configuration.getResultSetConcurrency() <= 0)
+                return defaultKey != null ? defaultKey : new Key(sql, sqlHash, 0, 0, 0, -1);
+            return new Key(sql, sqlHash, 0, configuration.getResultSetType(), configuration.getResultSetConcurrency(),
+                    configuration.getHoldability() < 0 ? -1 : configuration.getHoldability());
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return hash == key.hash && autoGeneratedKeys == key.autoGeneratedKeys && resultSetType == key.resultSetType &&
+                    resultSetConcurrency == key.resultSetConcurrency && holdability == key.holdability && sql.equals(key.sql) &&
+                    Arrays.equals(keyColumns, key.keyColumns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{sql=" + sql + ", autoGeneratedKeys=" + autoGeneratedKeys + ", resultSetType=" + resultSetType +
+                    ", resultSetConcurrency=" + resultSetConcurrency + ", holdability=" + holdability +
+                    (keyColumns == null ? "" : ", keyColumns=" + Arrays.toString(keyColumns)) + "}";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a resilient batch: the update count of every row and the rows the database rejected.
+ *
+ * @author Maxwell Nie
+ * @see PreparedIntegratedStatement#executeBatchResilient(io.github.maxwellnie.free.jdbc.batch.BatchSql, int, int)
+ */
+public final class ResilientBatchResult {
+    private final List<List<Object>> rows;
+    private final int[] updateCounts;
+    private final List<RejectedRow> rejectedRows = new ArrayList<>();
+    private int resentRowCount;
+
+    ResilientBatchResult(List<List<Object>> rows) {
+        this.rows = rows;
+        this.updateCounts = new int[rows.size()];
+    }
+
+    void succeeded(int from, int[] counts, int rowCount) {
+        for (int i = 0; i < rowCount; i++)
+            updateCounts[from + i] = i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO;
+    }
+
+    void rejected(int row, SQLException cause) {
+        updateCounts[row] = Statement.EXECUTE_FAILED;
+        rejectedRows.add(new RejectedRow(row, rows.get(row), cause));
+    }
+
+    void resent(int rowCount) {
+        resentRowCount += rowCount;
+    }
+
+    /**
+     * @return Update count of every row in row order, {@link Statement#EXECUTE_FAILED} for the rejected rows
+     */
+    public int[] getUpdateCounts() {
+        return updateCounts;
+    }
+
+    /**
+     * @return Rejected rows in the order they were found
+     */
+    public List<RejectedRow> getRejectedRows() {
+        return Collections.unmodifiableList(rejectedRows);
+    }
+
+    public boolean isSuccessful() {
+        return rejectedRows.isEmpty();
+    }
+
+    /**
+     * @return Number of rows sent again after a failure, because their outcome was unknown or rolled back
+     */
+    public int getResentRowCount() {
+        return resentRowCount;
+    }
+
+    int[] getUpdateCounts(int rowCount) {
+        return Arrays.copyOf(updateCounts, rowCount);
+    }
+
+    @Override
+    public String toString() {
+        return "ResilientBatchResult{rows=" + updateCounts.length + ", rejected=" + rejectedRows.size() + ", resent=" + resentRowCount + "}";
+    }
+
+    /**
+     * A row rejected by the database, with the exception reported for it.
+     */
+    public static final class RejectedRow {
+        private final int index;
+        private final List<Object> parameters;
+        private final SQLException cause;
+
+        RejectedRow(int index, List<Object> parameters, SQLException cause) {
+            this.index = index;
+            this.parameters = parameters;
+            this.cause = cause;
+        }
+
+        /**
+         * @return Position of the row in the batch
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+
+        public SQLException getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return "RejectedRow{index=" + index + ", parameters=" + parameters + ", cause=" + cause.getMessage() + "}";
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator pulling rows from an open {@link ResultSet} on demand and mapping them with a {@link RowMapper}.
+ * The result set and its owning resources are released when the iterator is closed, and automatically
+ * once the last row has been read or reading fails.
+ *
+ * @param <T> Type of the mapped rows
+ * @author Maxwell Nie
+ */
+public class ResultIterator<T> implements Iterator<T>, AutoCloseable {
+    private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+    private final AutoCloseable onClose;
+    private int rowNumber;
+    private boolean fetched;
+    private boolean hasNext;
+    private boolean closed;
+    private AdaptiveFetchSize adaptiveFetchSize;
+    private String sql;
+
+    /**
+     * @param resultSet Open result set to read from
+     * @param rowMapper Row mapper applied to each row
+     * @param onClose   Resource released after the result set is closed, may be null
+     */
+    public ResultIterator(ResultSet resultSet, RowMapper<T> rowMapper, AutoCloseable onClose) {
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!fetched) {
+            if (closed)
+                return false;
+            try {
+                hasNext = resultSet.next();
+            } catch (SQLException e) {
+                closeOnFailure(e);
+                throw new SqlExecutionException("Fetching next row failed, Error: " + e.getMessage(), e);
+            }
+            fetched = true;
+            if (!hasNext)
+                close();
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        fetched = false;
+        try {
+            return rowMapper.mapRow(resultSet, rowNumber++);
+        } catch (SQLException e) {
+            closeOnFailure(e);
+            throw new ResultParserException("Row mapping failed at row " + (rowNumber - 1) + ", Error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Records the number of rows returned into the fetch size chooser when the iterator is closed.
+     */
+    void recordRowsTo(AdaptiveFetchSize adaptiveFetchSize, String sql) {
+        this.adaptiveFetchSize = adaptiveFetchSize;
+        this.sql = sql;
+    }
+
+    /**
+     * @return Number of rows returned so far
+     */
+    public int getRowCount() {
+        return rowNumber;
+    }
+
+    /**
+     * Wraps this iterator into a sequential stream that closes the iterator when the stream is closed.
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false).onClose(this::close);
+    }
+
+    private void closeOnFailure(Exception cause) {
+        try {
+            close();
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void recordRows() {
+        int rowWidth = 0;
+        if (adaptiveFetchSize.needsRowWidth(sql)) {
+            try {
+                rowWidth = AdaptiveFetchSize.estimateRowWidth(resultSet.getMetaData());
+            } catch (SQLException ignored) {
+                // the row count is recorded without a width
+            }
+        }
+        adaptiveFetchSize.record(sql, rowNumber, rowWidth);
+    }
+
+    /**
+     * Closes the result set and then the owning resources. Calling it more than once has no effect.
+     *
+     * @throws StatementException If the resources cannot be released
+     */
+    @Override
+    public void close() throws StatementException {
+        if (closed)
+            return;
+        closed = true;
+        fetched = true;
+        hasNext = false;
+        StatementException exception = null;
+        if (adaptiveFetchSize != null)
+            recordRows();
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            exception = new StatementException("Error closing result set: " + e.getMessage() + ", Expected: successful closure, Actual: exception during closure", e);
+        }
+        if (onClose != null) {
+            try {
+                onClose.close();
+            } catch (Exception e) {
+                if (exception == null)
+                    exception = e instanceof StatementException ? (StatementException) e :
+                            new StatementException("Error releasing streaming resources: " + e.getMessage() + ", Expected: successful release, Actual: exception during release", e);
+                else
+                    exception.addSuppressed(e);
+            }
+        }
+        if (exception != null)
+            throw exception;
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Functional interface mapping the current row of a {@link ResultSet} to an object.
+ *
+ * @param <T> Type of the mapped object
+ * @author Maxwell Nie
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * Maps the current row. Implementations must not move the cursor.
+     *
+     * @param resultSet Result set positioned on the row to map
+     * @param rowNumber Number of the row, starting at 0
+     * @return Mapped object
+     * @throws SQLException If a column cannot be read
+     */
+    T mapRow(ResultSet resultSet, int rowNumber) throws SQLException;
+
+    /**
+     * Creates a result parser that maps every row of the current result set of a prepared statement into a list.
+     * The result set is closed after parsing.
+     *
+     * @param rowMapper Row mapper applied to each row
+     * @param <T>       Type of the mapped object
+     * @return Result parser returning the mapped rows, or an empty list if the statement produced no result set
+     */
+    static <T> ResultParser<PreparedStatement, Boolean, List<T>> listParser(RowMapper<T> rowMapper) {
+        return (statement, hasResultSet) -> {
+            try (ResultSet resultSet = statement.getResultSet()) {
+                List<T> rows = new ArrayList<>();
+                if (resultSet == null)
+                    return rows;
+                while (resultSet.next())
+                    rows.add(rowMapper.mapRow(resultSet, rows.size()));
+                return rows;
+            } catch (SQLException e) {
+                throw new ResultParserException("Result set mapping failed, Error: " + e.getMessage(), e);
+            }
+        };
+    }
+}
@@ -1,8 +1,11 @@
 package io.github.maxwellnie.free.jdbc.statement;
 
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
 import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.script.SqlScriptReader;
 import io.github.maxwellnie.free.jdbc.single.SingleSql;
 
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -11,6 +14,8 @@ import java.sql.Statement;
  * @author Maxwell Nie
  */
 public class SimpleIntegratedStatement extends BaseIntegratedStatement<Statement, SimpleIntegratedStatement> {
+    private static final String SCRIPT_SQL = "<script>";
+
     public SimpleIntegratedStatement(Connection connection) {
         super(connection);
         this.integratedStatement = this;
@@ -18,6 +23,7 @@ public class SimpleIntegratedStatement extends BaseIntegratedStatement<Statement
 
     @Override
     public SimpleIntegratedStatement createStatement(String sql) throws StatementException {
+        long start = traceStart();
         this.sql = sql;
         validateConnection();
         validateSql();
@@ -29,9 +35,10 @@ public class SimpleIntegratedStatement extends BaseIntegratedStatement<Statement
                 statement = StatementUtils.statement(connection);
             applyConfiguration();
         } catch (SQLException e) {
-            throw new StatementException("Simple statement creation failed for SQL: " + sql + ", Error: " + e.getMessage() +
-                    ", Expected: successful statement creation, Actual: SQLException during creation", e);
+            throw traceFailure(StatementTrace.Phase.PREPARE, start, new StatementException("Simple statement creation failed for SQL: " + sql + ", Error: " + e.getMessage() +
+                    ", Expected: successful statement creation, Actual: SQLException during creation", e));
         }
+        traceEnd(StatementTrace.Phase.PREPARE, start);
         return integratedStatement;
     }
 
@@ -75,4 +82,27 @@ public class SimpleIntegratedStatement extends BaseIntegratedStatement<Statement
             createStatement(batchSql.getSqlString());
         return execute(Executor.STATEMENT_BATCH_EXECUTOR);
     }
-}
\ No newline at end of file
+
+    /**
+     * Executes a SQL script read statement by statement, sending chunkSize statements per executeBatch call.
+     * The reader is closed when the script has been executed.
+     *
+     * @param script    Reader of the script, statements are split as by {@link SqlScriptReader}
+     * @param chunkSize Maximum number of statements sent with one executeBatch call, must be greater than 0
+     * @return Update counts of all statements in script order
+     * @throws SqlExecutionException if a chunk fails or the script cannot be read
+     */
+    public int[] executeScript(Reader script, int chunkSize) throws SqlExecutionException {
+        if (script == null)
+            throw new SqlExecutionException("Script reader cannot be null");
+        try (SqlScriptReader reader = new SqlScriptReader(script)) {
+            Executor<Statement, int[]> executor = Executor.statementScriptExecutor(reader, chunkSize);
+            if (statement == null)
+                createStatement(SCRIPT_SQL);
+            return execute(executor);
+        } catch (SqlBuildException e) {
+            throw new SqlExecutionException("Script execution failed for SQL: " + sql + ", Error: " + e.getMessage() +
+                    ", Expected: readable script, Actual: exception while reading the script", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+/**
+ * Listener notified after every execution of an integrated statement.
+ * <p>
+ * The trace handed to the listener holds the SQL, the time spent preparing, binding, executing and parsing,
+ * the row count and the batch size of the execution. It is reused by the statement wrapper for the next
+ * execution, so a listener must copy what it keeps. Listeners are called on the executing thread and should
+ * return quickly; an exception thrown by a listener is propagated to the caller.
+ * <pre><code>
+ *   StatementMetrics metrics = new StatementMetrics();
+ *   new PreparedIntegratedStatement(connection)
+ *           .setStatementListener(metrics)
+ *           .executeUpdate(singleSql);
+ * </code></pre>
+ *
+ * @author Maxwell Nie
+ * @see StatementTrace
+ */
+@FunctionalInterface
+public interface StatementListener {
+    /**
+     * Called once an execution has completed, successfully or not. A failure while preparing the statement or
+     * binding its parameters is reported as a failed execution too.
+     *
+     * @param trace Trace of the execution, only valid during the call
+     */
+    void onExecution(StatementTrace trace);
+
+    /**
+     * Combines two listeners into one calling both in order. Either may be null.
+     */
+    static StatementListener compose(StatementListener first, StatementListener second) {
+        if (first == null)
+            return second;
+        if (second == null)
+            return first;
+        return trace -> {
+            first.onExecution(trace);
+            second.onExecution(trace);
+        };
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Timings and counts of one statement execution, reported to a {@link StatementListener}.
+ * <p>
+ * The phases accumulated since the previous execution of the same wrapper are reported together: a statement
+ * prepared once and executed several times reports its {@link Phase#PREPARE} time with the first execution only.
+ * A wrapper reuses one trace instance for all its executions.
+ *
+ * @author Maxwell Nie
+ */
+public final class StatementTrace {
+    private static final Phase[] PHASES = Phase.values();
+    private final long[] phaseNanos = new long[PHASES.length];
+    private String sql;
+    private Object parameters;
+    private long rowCount = -1;
+    private int batchSize;
+    private Throwable failure;
+
+    StatementTrace() {
+    }
+
+    /**
+     * @return SQL of the statement
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the parameters object that was bound, for example a {@link io.github.maxwellnie.free.jdbc.single.SingleSql}
+     * or a {@link io.github.maxwellnie.free.jdbc.batch.BatchSql}. It is the caller's object, not a copy.
+     *
+     * @return Bound parameters, null if none were bound through the wrapper
+     */
+    public Object getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return Nanoseconds spent in the phase, 0 if the phase did not run
+     */
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return Nanoseconds spent in all phases
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : phaseNanos)
+            total += nanos;
+        return total;
+    }
+
+    /**
+     * Returns the number of rows updated, or returned when the result parser produced a collection.
+     * For batches it is the sum of the known update counts.
+     *
+     * @return Row count, -1 if unknown
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return Number of batch entries executed, 0 if the execution was not a batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return Exception the execution failed with, null if it succeeded
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    void start(String sql) {
+        this.sql = sql;
+    }
+
+    void parameters(Object parameters) {
+        this.parameters = parameters;
+    }
+
+    void record(Phase phase, long startNanos) {
+        phaseNanos[phase.ordinal()] += System.nanoTime() - startNanos;
+    }
+
+    void fail(Throwable failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Derives the row count and batch size from the result of an executor.
+     */
+    void result(Object result) {
+        if (result instanceof Integer)
+            rowCount = (Integer) result;
+        else if (result instanceof Long)
+            rowCount = (Long) result;
+        else if (result instanceof int[]) {
+            int[] counts = (int[]) result;
+            long rows = 0;
+            for (int count : counts)
+                rows += count > 0 ? count : 0;
+            rowCount = rows;
+            batchSize = counts.length;
+        } else if (result instanceof long[]) {
+            long[] counts = (long[]) result;
+            long rows = 0;
+            for (long count : counts)
+                rows += count > 0 ? count : 0;
+            rowCount = rows;
+            batchSize = counts.length;
+        } else if (result instanceof BatchSummary) {
+            BatchSummary summary = (BatchSummary) result;
+            rowCount = summary.getAffectedRows();
+            batchSize = summary.getRowCount();
+        }
+    }
+
+    /**
+     * Takes the row count from the result of a result parser when it is a collection.
+     */
+    void parsed(Object result) {
+        if (result instanceof Collection && rowCount < 0)
+            rowCount = ((Collection<?>) result).size();
+    }
+
+    void reset() {
+        for (int i = 0; i < phaseNanos.length; i++)
+            phaseNanos[i] = 0;
+        parameters = null;
+        rowCount = -1;
+        batchSize = 0;
+        failure = null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("StatementTrace{sql=").append(sql);
+        for (Phase phase : PHASES)
+            builder.append(", ").append(phase.name().toLowerCase(Locale.ROOT)).append("Nanos=").append(phaseNanos[phase.ordinal()]);
+        return builder.append(", rowCount=").append(rowCount).append(", batchSize=").append(batchSize)
+                .append(", failure=").append(failure).append('}').toString();
+    }
+
+    /**
+     * Phases of a statement execution.
+     */
+    public enum Phase {
+        /**
+         * Creating or acquiring the JDBC statement, see {@link IntegratedStatement#createStatement(String)}.
+         */
+        PREPARE,
+        /**
+         * Binding parameters, see {@link IntegratedStatement#parameterize(ParametersHandler, Object)}.
+         * Executors binding rows themselves, like the chunked batch executor, report binding as {@link #EXECUTE}.
+         */
+        BIND,
+        /**
+         * Running the executor, see {@link Executor#execute(Statement, String)}.
+         */
+        EXECUTE,
+        /**
+         * Running the result parser, see {@link ResultParser}.
+         */
+        PARSE
+    }
+}
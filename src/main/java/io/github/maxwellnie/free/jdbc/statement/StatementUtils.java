@@ -1,6 +1,7 @@
 package io.github.maxwellnie.free.jdbc.statement;
 
 import java.sql.*;
+import java.util.Arrays;
 
 /**
  * @author Maxwell Nie
@@ -24,6 +25,16 @@ public interface StatementUtils {
         return preparedStatement;
     }
 
+    /**
+     * Prepares a statement returning the generated keys of the named columns, or the driver's default keys when
+     * no column is named.
+     */
+    static PreparedStatement prepareStatement(Connection connection, String sql, String[] keyColumns) throws SQLException {
+        if (keyColumns == null || keyColumns.length == 0)
+            return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        return connection.prepareStatement(sql, keyColumns);
+    }
+
     static Statement statement(Connection connection, int resultSetType, int resultSetConcurrency, int holdability) throws SQLException {
         Statement statement;
         if (resultSetType > 0 && resultSetConcurrency > 0) {
@@ -57,4 +68,47 @@ public interface StatementUtils {
         }
         return callableStatement;
     }
+
+    /**
+     * Builds the exception of a failed chunk of a chunked batch, holding the update counts of the rows executed by
+     * the previous chunks followed by the counts the driver reported for the failed chunk.
+     *
+     * @param failure       Exception of the failed chunk
+     * @param executed      Update counts of the previous chunks
+     * @param executedCount Number of rows executed by the previous chunks
+     */
+    static BatchUpdateException chunkFailure(BatchUpdateException failure, int[] executed, int executedCount) {
+        int[] chunkCounts = failure.getUpdateCounts() == null ? new int[0] : failure.getUpdateCounts();
+        int[] counts = Arrays.copyOf(executed, executedCount + chunkCounts.length);
+        System.arraycopy(chunkCounts, 0, counts, executedCount, chunkCounts.length);
+        return new BatchUpdateException("Batch chunk failed after " + executedCount + " executed rows, Error: " + failure.getMessage(),
+                failure.getSQLState(), failure.getErrorCode(), counts, failure);
+    }
+
+    /**
+     * Clears the batch of a statement after a failure, so the rows left queued are not sent by its next user.
+     */
+    static void clearBatch(Statement statement, Exception failure) {
+        try {
+            statement.clearBatch();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Executes the batch with executeLargeBatch, or with executeBatch and the counts widened to long when the driver
+     * does not implement executeLargeBatch.
+     */
+    static long[] executeLargeBatch(Statement statement) throws SQLException {
+        try {
+            return statement.executeLargeBatch();
+        } catch (UnsupportedOperationException | SQLFeatureNotSupportedException e) {
+            int[] counts = statement.executeBatch();
+            long[] largeCounts = new long[counts.length];
+            for (int i = 0; i < counts.length; i++)
+                largeCounts[i] = counts[i];
+            return largeCounts;
+        }
+    }
 }
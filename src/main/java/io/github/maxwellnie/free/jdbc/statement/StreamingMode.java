@@ -0,0 +1,59 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Driver specific settings applied before a query result is streamed row by row.
+ *
+ * @author Maxwell Nie
+ * @see PreparedIntegratedStatement#executeQueryStream(io.github.maxwellnie.free.jdbc.single.SingleSql, RowMapper, StreamingMode)
+ */
+public enum StreamingMode {
+    /**
+     * Rows are fetched in batches of the configured fetch size, nothing else is changed.
+     */
+    DEFAULT {
+        @Override
+        boolean prepare(Connection connection, PreparedStatement statement) {
+            return false;
+        }
+    },
+    /**
+     * PostgreSQL only uses a server-side cursor inside a transaction and with a positive fetch size.
+     * Auto-commit is turned off for the lifetime of the stream and turned back on when it is closed,
+     * and the fetch size defaults to {@link #DEFAULT_FETCH_SIZE} when none is configured.
+     */
+    POSTGRESQL {
+        @Override
+        boolean prepare(Connection connection, PreparedStatement statement) throws SQLException {
+            if (statement.getFetchSize() <= 0)
+                statement.setFetchSize(DEFAULT_FETCH_SIZE);
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                return true;
+            }
+            return false;
+        }
+    },
+    /**
+     * MySQL Connector/J streams a forward-only, read-only result row by row when the fetch size is Integer.MIN_VALUE.
+     */
+    MYSQL {
+        @Override
+        boolean prepare(Connection connection, PreparedStatement statement) throws SQLException {
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return false;
+        }
+    };
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Applies the settings to the connection and statement.
+     *
+     * @return true if auto-commit was turned off and must be turned back on after streaming
+     */
+    abstract boolean prepare(Connection connection, PreparedStatement statement) throws SQLException;
+}
@@ -0,0 +1,313 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import io.github.maxwellnie.free.jdbc.batch.BatchSqlBuilder;
+import io.github.maxwellnie.free.jdbc.single.SingleSql;
+import io.github.maxwellnie.free.jdbc.single.SingleSqlBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional write-behind buffer bound to one {@link Connection}. Writes are not executed when they are
+ * submitted but when the unit of work is flushed, with the writes of the same SQL sent together as one prepared batch.
+ * <pre><code>
+ *   try (UnitOfWork work = new UnitOfWork(connection)) {
+ *       for (Order order : orders)
+ *           work.update(insertOrder(order));
+ *       work.update(updateStock(item));
+ *       work.commit();
+ *   }
+ * </code></pre>
+ * The unit of work flushes before every read and immediate write it executes, when the number of pending writes
+ * reaches the flush threshold, and on commit. Pending writes are discarded on rollback and on close.
+ * <p>
+ * By default the writes keep their submission order and only consecutive writes of the same SQL are sent together.
+ * {@link Ordering#GROUPED} sends the writes of one SQL in the position of the first of them, which batches more but
+ * reorders writes of different SQL, so it has to be chosen explicitly; call {@link #flush()} as a barrier between
+ * writes that depend on each other under GROUPED ordering.
+ * Reads issued on the connection outside the unit of work do not see pending writes.
+ * <p>
+ * The auto-commit mode of the connection is turned off while the unit of work is open. It is not thread safe.
+ *
+ * @author Maxwell Nie
+ */
+public class UnitOfWork implements AutoCloseable {
+    public static final int DEFAULT_FLUSH_THRESHOLD = 1000;
+    private final Connection connection;
+    private final PreparedStatementCache statementCache;
+    private final boolean ownedCache;
+    private final boolean autoCommit;
+    private final List<SingleSql> pending = new ArrayList<>();
+    private int flushThreshold = DEFAULT_FLUSH_THRESHOLD;
+    private Ordering ordering = Ordering.STRICT;
+    private Configuration configuration;
+    private StatementListener statementListener;
+    private long affectedRows;
+    private boolean closed;
+
+    /**
+     * Creates a unit of work preparing its statements through a statement cache it owns.
+     */
+    public UnitOfWork(Connection connection) throws StatementException {
+        this(connection == null ? null : new PreparedStatementCache(connection), true);
+    }
+
+    /**
+     * @param statementCache Statement cache of the connection to prepare the statements through, not closed by this unit of work
+     */
+    public UnitOfWork(PreparedStatementCache statementCache) throws StatementException {
+        this(statementCache, false);
+    }
+
+    private UnitOfWork(PreparedStatementCache statementCache, boolean ownedCache) throws StatementException {
+        if (statementCache == null)
+            throw new StatementException("Connection is null, Expected: active database connection, Actual: null connection");
+        this.statementCache = statementCache;
+        this.ownedCache = ownedCache;
+        this.connection = statementCache.getConnection();
+        try {
+            autoCommit = connection.getAutoCommit();
+            if (autoCommit)
+                connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new StatementException("Unit of work creation failed, Error: " + e.getMessage() +
+                    ", Expected: transaction started, Actual: SQLException while disabling auto-commit", e);
+        }
+    }
+
+    /**
+     * Sets the number of pending writes that triggers a flush, 0 flushes only on demand.
+     */
+    public UnitOfWork setFlushThreshold(int flushThreshold) {
+        if (flushThreshold < 0)
+            throw new StatementException("Flush threshold cannot be negative, Actual: " + flushThreshold);
+        this.flushThreshold = flushThreshold;
+        return this;
+    }
+
+    public UnitOfWork setOrdering(Ordering ordering) {
+        if (ordering == null)
+            throw new StatementException("Ordering cannot be null");
+        this.ordering = ordering;
+        return this;
+    }
+
+    public UnitOfWork setConfiguration(Configuration configuration) {
+        this.configuration = configuration;
+        return this;
+    }
+
+    public UnitOfWork setStatementListener(StatementListener statementListener) {
+        this.statementListener = statementListener;
+        return this;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return Number of writes waiting for the next flush
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return Sum of the update counts of all writes flushed so far
+     */
+    public long getAffectedRows() {
+        return affectedRows;
+    }
+
+    /**
+     * Buffers a write. Its parameters are copied, so the SQL object can be reused by the caller.
+     *
+     * @param singleSql Write to execute with the next flush
+     * @throws SqlExecutionException if the write triggers a flush that fails
+     */
+    public UnitOfWork update(SingleSql singleSql) throws SqlExecutionException {
+        validateOpen();
+        if (singleSql == null)
+            throw new SqlExecutionException("Single SQL cannot be null");
+        List<Object> parameters = singleSql.getSqlParameters();
+        pending.add(new SingleSqlBuilder.SingleSqlImpl(singleSql.getSqlString(), parameters == null ? new ArrayList<>() : new ArrayList<>(parameters)));
+        if (flushThreshold > 0 && pending.size() >= flushThreshold)
+            flush();
+        return this;
+    }
+
+    /**
+     * Flushes the pending writes and executes the write at once, for writes whose update count is needed.
+     *
+     * @return Update count of the write
+     */
+    public int executeUpdate(SingleSql singleSql) throws SqlExecutionException {
+        validateOpen();
+        flush();
+        try (PreparedIntegratedStatement statement = statement()) {
+            int count = statement.executeUpdate(singleSql);
+            affectedRows += Math.max(count, 0);
+            return count;
+        }
+    }
+
+    /**
+     * Flushes the pending writes and executes the query, so the query sees every write submitted before it.
+     */
+    public <R> R executeQuery(SingleSql singleSql, ResultParser<PreparedStatement, Boolean, R> resultParser) throws SqlExecutionException, ResultParserException {
+        validateOpen();
+        flush();
+        try (PreparedIntegratedStatement statement = statement()) {
+            return statement.executeQuery(singleSql, resultParser);
+        }
+    }
+
+    /**
+     * Executes the pending writes, one prepared batch per group of writes with the same SQL.
+     * The pending writes are discarded even when the flush fails, the transaction should then be rolled back.
+     *
+     * @return Update count of every flushed write, in the order the writes were submitted
+     * @throws SqlExecutionException if a write fails
+     */
+    public int[] flush() throws SqlExecutionException {
+        validateOpen();
+        int size = pending.size();
+        if (size == 0)
+            return new int[0];
+        int[] counts = new int[size];
+        try {
+            if (ordering == Ordering.GROUPED) {
+                Map<String, List<Integer>> groups = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++)
+                    groups.computeIfAbsent(pending.get(i).getSqlString(), sql -> new ArrayList<>()).add(i);
+                for (Map.Entry<String, List<Integer>> group : groups.entrySet())
+                    execute(group.getKey(), group.getValue(), counts);
+            } else {
+                List<Integer> run = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    if (!run.isEmpty() && !pending.get(run.get(0)).getSqlString().equals(pending.get(i).getSqlString())) {
+                        execute(pending.get(run.get(0)).getSqlString(), run, counts);
+                        run.clear();
+                    }
+                    run.add(i);
+                }
+                execute(pending.get(run.get(0)).getSqlString(), run, counts);
+            }
+        } finally {
+            pending.clear();
+        }
+        for (int count : counts)
+            affectedRows += Math.max(count, 0);
+        return counts;
+    }
+
+    private void execute(String sql, List<Integer> writes, int[] counts) {
+        try (PreparedIntegratedStatement statement = statement()) {
+            if (writes.size() == 1) {
+                counts[writes.get(0)] = statement.executeUpdate(pending.get(writes.get(0)));
+                return;
+            }
+            List<List<Object>> rows = new ArrayList<>(writes.size());
+            for (int write : writes)
+                rows.add(pending.get(write).getSqlParameters());
+            int[] batchCounts = statement.executeBatch(new BatchSqlBuilder.BatchSqlImpl(sql, rows));
+            for (int i = 0; i < writes.size(); i++)
+                counts[writes.get(i)] = i < batchCounts.length ? batchCounts[i] : java.sql.Statement.SUCCESS_NO_INFO;
+        }
+    }
+
+    private PreparedIntegratedStatement statement() {
+        PreparedIntegratedStatement statement = new PreparedIntegratedStatement(statementCache);
+        statement.setConfiguration(configuration);
+        statement.setStatementListener(statementListener);
+        return statement;
+    }
+
+    /**
+     * Flushes the pending writes and commits the transaction.
+     *
+     * @throws SqlExecutionException if the flush or the commit fails
+     */
+    public void commit() throws SqlExecutionException {
+        flush();
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            throw new SqlExecutionException("Unit of work commit failed, Error: " + e.getMessage() +
+                    ", Expected: successful commit, Actual: SQLException during commit", e);
+        }
+    }
+
+    /**
+     * Discards the pending writes and rolls the transaction back.
+     *
+     * @throws SqlExecutionException if the rollback fails
+     */
+    public void rollback() throws SqlExecutionException {
+        validateOpen();
+        pending.clear();
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            throw new SqlExecutionException("Unit of work rollback failed, Error: " + e.getMessage() +
+                    ", Expected: successful rollback, Actual: SQLException during rollback", e);
+        }
+    }
+
+    private void validateOpen() {
+        if (closed)
+            throw new StatementException("Unit of work is closed, Expected: open unit of work, Actual: closed unit of work");
+    }
+
+    /**
+     * Discards the pending writes and closes the owned statement cache. When the unit of work turned auto-commit off,
+     * the uncommitted writes are rolled back before auto-commit is turned on again; otherwise the transaction is left
+     * to the caller.
+     */
+    @Override
+    public void close() throws StatementException {
+        if (closed)
+            return;
+        closed = true;
+        pending.clear();
+        StatementException exception = null;
+        try {
+            if (autoCommit) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            exception = new StatementException("Error restoring auto-commit: " + e.getMessage() + ", Expected: auto-commit restored, Actual: exception while restoring", e);
+        }
+        if (ownedCache) {
+            try {
+                statementCache.close();
+            } catch (StatementException e) {
+                if (exception == null)
+                    exception = e;
+                else
+                    exception.addSuppressed(e);
+            }
+        }
+        if (exception != null)
+            throw exception;
+    }
+
+    public enum Ordering {
+        /**
+         * Sends all writes of one SQL as one batch, in the position of the first of them. Writes of different SQL are
+         * reordered, so a write depending on an earlier write of another SQL needs a {@link UnitOfWork#flush()} between them.
+         */
+        GROUPED,
+        /**
+         * Keeps the submission order, only consecutive writes of the same SQL are sent as one batch. The default.
+         */
+        STRICT
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.maxwellnie.free.jdbc.template;
+
+import io.github.maxwellnie.free.jdbc.mapping.BeanAccessor;
+
+import java.util.Map;
+
+/**
+ * Source of the named parameter values bound by a {@link SqlTemplate}.
+ *
+ * @author Maxwell Nie
+ */
+@FunctionalInterface
+public interface ParameterSource {
+    /**
+     * Marker returned by {@link #getValue(String)} when the source has no value for a name.
+     */
+    Object ABSENT = new Object() {
+        @Override
+        public String toString() {
+            return "ABSENT";
+        }
+    };
+
+    /**
+     * @param name Parameter name without the colon
+     * @return Value of the parameter, which may be null, or {@link #ABSENT} if the source has none
+     */
+    Object getValue(String name);
+
+    /**
+     * Creates a source reading the entries of the map.
+     */
+    static ParameterSource of(Map<String, ?> values) {
+        return name -> {
+            Object value = values.get(name);
+            return value != null || values.containsKey(name) ? value : ABSENT;
+        };
+    }
+
+    /**
+     * Creates a source reading the properties of the bean through its {@link BeanAccessor}.
+     */
+    static ParameterSource ofBean(Object bean) {
+        BeanAccessor<?> accessor = BeanAccessor.of(bean.getClass());
+        return name -> {
+            BeanAccessor.PropertyGetter getter = accessor.getter(name);
+            return getter == null ? ABSENT : getter.get(bean);
+        };
+    }
+}
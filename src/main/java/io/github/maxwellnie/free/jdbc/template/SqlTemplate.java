@@ -0,0 +1,358 @@
+package io.github.maxwellnie.free.jdbc.template;
+
+import io.github.maxwellnie.free.jdbc.SqlBuildException;
+import io.github.maxwellnie.free.jdbc.batch.BatchSql;
+import io.github.maxwellnie.free.jdbc.batch.BatchSqlBuilder;
+import io.github.maxwellnie.free.jdbc.batch.StreamingBatchSql;
+import io.github.maxwellnie.free.jdbc.mapping.BeanAccessor;
+import io.github.maxwellnie.free.jdbc.single.SingleSql;
+import io.github.maxwellnie.free.jdbc.single.SingleSqlBuilder;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQL with named {@code :name} placeholders, parsed once into positional {@code ?} SQL.
+ * <p>
+ * Placeholders inside string literals, quoted identifiers and comments are ignored, and {@code ::} casts are kept
+ * as they are. A name may appear several times. Values are taken from a {@link Map}, a bean or a
+ * {@link ParameterSource}, and binding only fills the parameter list: the SQL string is reused as is unless a
+ * collection or array value has to be expanded into {@code ?, ?, ?}. Expanded SQL strings are cached per list size.
+ * <pre><code>
+ *   SqlTemplate template = SqlTemplate.of("SELECT * FROM users WHERE status = :status AND id IN (:ids)");
+ *   SingleSql singleSql = template.bind(Collections.singletonMap(...));
+ *   BatchSql batchSql = SqlTemplate.of("INSERT INTO users(id, name) VALUES(:id, :name)").bindBatch(users);
+ * </code></pre>
+ * Positional {@code ?} placeholders cannot be mixed with named ones.
+ *
+ * @author Maxwell Nie
+ */
+public final class SqlTemplate {
+    public static final int MAX_CACHED_TEMPLATES = 1024;
+    static final int MAX_CACHED_EXPANSIONS = 64;
+    private static final Map<String, SqlTemplate> TEMPLATES = new ConcurrentHashMap<>();
+    private final String namedSql;
+    private final String sql;
+    private final String[] fragments;
+    private final String[] names;
+    private final List<String> parameterNames;
+    private final Map<Class<?>, BeanAccessor.PropertyGetter[]> beanPlans = new ConcurrentHashMap<>();
+    private final Map<ExpansionKey, String> expansions = new ConcurrentHashMap<>();
+
+    private SqlTemplate(String namedSql, List<String> fragments, List<String> names) {
+        this.namedSql = namedSql;
+        this.fragments = fragments.toArray(new String[0]);
+        this.names = names.toArray(new String[0]);
+        this.parameterNames = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(names)));
+        StringBuilder builder = new StringBuilder(namedSql.length());
+        for (int i = 0; i < this.names.length; i++)
+            builder.append(this.fragments[i]).append('?');
+        this.sql = builder.append(this.fragments[this.names.length]).toString();
+    }
+
+    /**
+     * Returns the template of the SQL, parsing it on first use. Up to {@value #MAX_CACHED_TEMPLATES} templates are cached.
+     *
+     * @param namedSql SQL with {@code :name} placeholders
+     * @throws SqlBuildException if the SQL is null, empty or contains positional placeholders
+     */
+    public static SqlTemplate of(String namedSql) throws SqlBuildException {
+        if (namedSql == null)
+            throw new SqlBuildException("SQL template cannot be null");
+        SqlTemplate template = TEMPLATES.get(namedSql);
+        if (template != null)
+            return template;
+        template = compile(namedSql);
+        if (TEMPLATES.size() < MAX_CACHED_TEMPLATES) {
+            SqlTemplate existing = TEMPLATES.putIfAbsent(namedSql, template);
+            if (existing != null)
+                return existing;
+        }
+        return template;
+    }
+
+    /**
+     * Parses the SQL without caching the template.
+     *
+     * @param namedSql SQL with {@code :name} placeholders
+     * @throws SqlBuildException if the SQL is null, empty or contains positional placeholders
+     */
+    public static SqlTemplate compile(String namedSql) throws SqlBuildException {
+        if (namedSql == null || namedSql.isEmpty())
+            throw new SqlBuildException("SQL template cannot be null or empty");
+        List<String> fragments = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int length = namedSql.length();
+        int fragmentStart = 0;
+        int i = 0;
+        while (i < length) {
+            char c = namedSql.charAt(i);
+            char next = i + 1 < length ? namedSql.charAt(i + 1) : '\0';
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = namedSql.indexOf(c, i + 1);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '-' && next == '-') {
+                int end = namedSql.indexOf('\n', i + 2);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && next == '*') {
+                int end = namedSql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == ':' && next == ':') {
+                i += 2;
+            } else if (c == ':' && (Character.isLetter(next) || next == '_')) {
+                int end = i + 2;
+                while (end < length && (Character.isLetterOrDigit(namedSql.charAt(end)) || namedSql.charAt(end) == '_'))
+                    end++;
+                fragments.add(namedSql.substring(fragmentStart, i));
+                names.add(namedSql.substring(i + 1, end));
+                fragmentStart = i = end;
+            } else if (c == '?') {
+                throw new SqlBuildException("Positional parameter at index " + i + " cannot be mixed with named parameters in SQL: " + namedSql);
+            } else {
+                i++;
+            }
+        }
+        fragments.add(namedSql.substring(fragmentStart));
+        return new SqlTemplate(namedSql, fragments, names);
+    }
+
+    /**
+     * @return SQL with named placeholders, as given
+     */
+    public String getNamedSql() {
+        return namedSql;
+    }
+
+    /**
+     * @return SQL with positional placeholders, before list expansion
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return Distinct parameter names in order of first appearance
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * @return Number of placeholders, counting repeated names
+     */
+    public int getPlaceholderCount() {
+        return names.length;
+    }
+
+    /**
+     * Binds the values of the map.
+     *
+     * @throws SqlBuildException if a parameter has no entry in the map
+     */
+    public SingleSql bind(Map<String, ?> values) throws SqlBuildException {
+        return toSingleSql(values(values));
+    }
+
+    /**
+     * Binds the values of the source.
+     *
+     * @throws SqlBuildException if the source has no value for a parameter
+     */
+    public SingleSql bind(ParameterSource source) throws SqlBuildException {
+        return toSingleSql(values(source));
+    }
+
+    /**
+     * Binds the properties of the bean. A {@link Map} or a {@link ParameterSource} is bound as such.
+     *
+     * @throws SqlBuildException if the bean has no readable property for a parameter
+     */
+    public SingleSql bind(Object bean) throws SqlBuildException {
+        return toSingleSql(valuesOf(bean));
+    }
+
+    /**
+     * Binds every item as one row of a batch. Items may be maps, parameter sources or beans.
+     *
+     * @throws SqlBuildException if a parameter has no value or a value needs list expansion
+     */
+    public BatchSql bindBatch(Iterable<?> items) throws SqlBuildException {
+        if (items == null)
+            throw new SqlBuildException("Batch items cannot be null");
+        List<List<Object>> rows = items instanceof Collection ? new ArrayList<>(((Collection<?>) items).size()) : new ArrayList<>();
+        for (Object item : items)
+            rows.add(toRow(valuesOf(item)));
+        return new BatchSqlBuilder.BatchSqlImpl(sql, rows);
+    }
+
+    /**
+     * Binds the items lazily as rows of a streaming batch, see {@link StreamingBatchSql}.
+     *
+     * @throws SqlBuildException if a parameter has no value or a value needs list expansion, when the row is bound
+     */
+    public StreamingBatchSql bindStream(Iterator<?> items) throws SqlBuildException {
+        if (items == null)
+            throw new SqlBuildException("Batch items cannot be null");
+        return StreamingBatchSql.of(sql, new Iterator<List<Object>>() {
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public List<Object> next() {
+                return toRow(valuesOf(items.next()));
+            }
+        });
+    }
+
+    private Object[] valuesOf(Object item) {
+        if (item instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, ?> map = (Map<String, ?>) item;
+            return values(map);
+        }
+        if (item instanceof ParameterSource)
+            return values((ParameterSource) item);
+        if (item == null)
+            throw new SqlBuildException("Parameter bean cannot be null for SQL: " + namedSql);
+        BeanAccessor.PropertyGetter[] getters = beanPlans.get(item.getClass());
+        if (getters == null)
+            getters = beanPlans.computeIfAbsent(item.getClass(), this::plan);
+        Object[] values = new Object[names.length];
+        for (int i = 0; i < values.length; i++)
+            values[i] = getters[i].get(item);
+        return values;
+    }
+
+    private BeanAccessor.PropertyGetter[] plan(Class<?> type) {
+        BeanAccessor<?> accessor = BeanAccessor.of(type);
+        BeanAccessor.PropertyGetter[] getters = new BeanAccessor.PropertyGetter[names.length];
+        for (int i = 0; i < names.length; i++) {
+            getters[i] = accessor.getter(names[i]);
+            if (getters[i] == null)
+                throw new SqlBuildException("No readable property for parameter :" + names[i] + " in " + type.getName() + " for SQL: " + namedSql);
+        }
+        return getters;
+    }
+
+    private Object[] values(Map<String, ?> map) {
+        if (map == null)
+            throw new SqlBuildException("Parameter map cannot be null for SQL: " + namedSql);
+        Object[] values = new Object[names.length];
+        for (int i = 0; i < values.length; i++) {
+            Object value = map.get(names[i]);
+            if (value == null && !map.containsKey(names[i]))
+                throw missing(names[i]);
+            values[i] = value;
+        }
+        return values;
+    }
+
+    private Object[] values(ParameterSource source) {
+        Object[] values = new Object[names.length];
+        for (int i = 0; i < values.length; i++) {
+            Object value = source.getValue(names[i]);
+            if (value == ParameterSource.ABSENT)
+                throw missing(names[i]);
+            values[i] = value;
+        }
+        return values;
+    }
+
+    private SqlBuildException missing(String name) {
+        return new SqlBuildException("No value for parameter :" + name + " in SQL: " + namedSql);
+    }
+
+    private List<Object> toRow(Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (isExpandable(values[i]))
+                throw new SqlBuildException("List expansion of parameter :" + names[i] + " is not supported in a batch for SQL: " + namedSql);
+        }
+        return Arrays.asList(values);
+    }
+
+    private SingleSql toSingleSql(Object[] values) {
+        int[] sizes = null;
+        int total = values.length;
+        for (int i = 0; i < values.length; i++) {
+            if (!isExpandable(values[i]))
+                continue;
+            int size = values[i] instanceof Collection ? ((Collection<?>) values[i]).size() : Array.getLength(values[i]);
+            if (size == 0)
+                throw new SqlBuildException("Empty list for parameter :" + names[i] + " in SQL: " + namedSql);
+            if (sizes == null)
+                sizes = new int[values.length];
+            sizes[i] = size;
+            total += size - 1;
+        }
+        if (sizes == null)
+            return new SingleSqlBuilder.SingleSqlImpl(sql, Arrays.asList(values));
+        List<Object> parameters = new ArrayList<>(total);
+        for (Object value : values) {
+            if (value instanceof Collection)
+                parameters.addAll((Collection<?>) value);
+            else if (isExpandable(value)) {
+                for (int j = 0, length = Array.getLength(value); j < length; j++)
+                    parameters.add(Array.get(value, j));
+            } else
+                parameters.add(value);
+        }
+        return new SingleSqlBuilder.SingleSqlImpl(expandedSql(sizes), parameters);
+    }
+
+    private String expandedSql(int[] sizes) {
+        ExpansionKey key = new ExpansionKey(sizes);
+        String expanded = expansions.get(key);
+        if (expanded != null)
+            return expanded;
+        StringBuilder builder = new StringBuilder(sql.length() + sizes.length * 8);
+        for (int i = 0; i < names.length; i++) {
+            builder.append(fragments[i]).append('?');
+            for (int j = 1; j < sizes[i]; j++)
+                builder.append(", ?");
+        }
+        expanded = builder.append(fragments[names.length]).toString();
+        if (expansions.size() < MAX_CACHED_EXPANSIONS)
+            expansions.putIfAbsent(key, expanded);
+        return expanded;
+    }
+
+    private static boolean isExpandable(Object value) {
+        return value instanceof Collection || (value != null && value.getClass().isArray() &&
+                value.getClass() != byte[].class && value.getClass() != char[].class);
+    }
+
+    @Override
+    public String toString() {
+        return "SqlTemplate{sql=" + namedSql + ", parameters=" + parameterNames + "}";
+    }
+
+    private static final class ExpansionKey {
+        final int[] sizes;
+        final int hash;
+
+        ExpansionKey(int[] sizes) {
+            this.sizes = sizes;
+            this.hash = Arrays.hashCode(sizes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ExpansionKey && hash == ((ExpansionKey) o).hash && Arrays.equals(sizes, ((ExpansionKey) o).sizes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
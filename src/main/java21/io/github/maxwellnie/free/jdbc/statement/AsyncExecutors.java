@@ -0,0 +1,47 @@
+package io.github.maxwellnie.free.jdbc.statement;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Default executor of the asynchronous statement methods.
+ * <p>
+ * Java 21 version of the multi-release jar: every task runs on its own virtual thread,
+ * so blocking JDBC calls do not tie up platform threads.
+ *
+ * @author Maxwell Nie
+ */
+public final class AsyncExecutors {
+    private static volatile java.util.concurrent.Executor defaultExecutor;
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * @return Executor used when an asynchronous method is called without one
+     */
+    public static java.util.concurrent.Executor defaultExecutor() {
+        java.util.concurrent.Executor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (AsyncExecutors.class) {
+                executor = defaultExecutor;
+                if (executor == null)
+                    defaultExecutor = executor = createDefaultExecutor();
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Replaces the default executor, for example with an application managed pool.
+     *
+     * @param executor Executor to use, null restores the built-in default
+     */
+    public static void setDefaultExecutor(java.util.concurrent.Executor executor) {
+        defaultExecutor = executor;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("free-jdbc-async-", 1).factory());
+    }
+}